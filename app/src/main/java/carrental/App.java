@@ -0,0 +1,591 @@
+package carrental;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.Scanner;
+
+public class App {
+    public static final FleetStore fleet = new FleetStore();
+    public static final BookingEngine bookings = new BookingEngine(fleet);
+    public static final QuoteEngine quotes = new QuoteEngine(fleet);
+    public static final FleetSearch search = new FleetSearch(fleet, bookings);
+    public static final AvailabilityCache availability =
+            new AvailabilityCache(fleet, bookings, search, quotes, AvailabilityCache.DEFAULT_CAPACITY);
+
+    // Every car added, mileage change and booking, for billing, notifications and
+    // analytics to subscribe to (see ChangeFeed.subscribe)
+    public static final ChangeFeed feed = new ChangeFeed(fleet, bookings, ChangeFeed.DEFAULT_CAPACITY);
+
+    // Data directory for snapshots and the write-ahead log (-Drental.data=...)
+    public static final String DATA_DIR = System.getProperty("rental.data", "rental-data");
+    private static Persistence persistence;
+
+    // Reports scan the bookings on demand; the running totals follow every change once
+    // created (after recovery, see startAnalytics)
+    public static final FleetAnalytics analytics = new FleetAnalytics(fleet, bookings, quotes);
+    private static RunningAggregates running;
+
+    // Periodic metrics dump: every -Drental.metrics.interval seconds (0 = off), as
+    // -Drental.metrics.format=text|json, appended to -Drental.metrics.file (default stderr)
+    public static final long METRICS_INTERVAL = Long.getLong("rental.metrics.interval", 0);
+    public static final String METRICS_FORMAT = System.getProperty("rental.metrics.format", "text");
+    public static final String METRICS_FILE = System.getProperty("rental.metrics.file");
+
+    // Cars shown per page by viewCars
+    public static final int PAGE_SIZE = 20;
+
+    public static final Scanner sc = new Scanner(System.in);
+
+    // Interactive menu by default; "--batch <file>" or "--batch -" (stdin) runs a command script,
+    // "--serve [port]" runs the HTTP service until the process is stopped
+    public static void main(String[] args) {
+        startMetrics();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args.length > 1 ? args[1] : "-"));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            System.exit(serve(args.length > 1 ? Integer.parseInt(args[1]) : RentalServer.DEFAULT_PORT));
+        }
+
+        System.out.println("************** Welcome to CAR RENTAL MANAGEMENT *****************");
+        openPersistence();
+        selector();
+        sc.close();
+        closePersistence();
+    }
+
+    // Run a BatchRunner script; returns the process exit code
+    public static int runBatch(String source) {
+        try {
+            persistence = Persistence.open(Paths.get(DATA_DIR), fleet, bookings);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not load saved data: " + e.getMessage());
+            return 2;
+        }
+        startAnalytics();
+
+        BatchRunner runner = new BatchRunner(fleet, bookings, quotes, search, availability, running, persistence,
+                BatchRunner.DEFAULT_BATCH_SIZE);
+        int status;
+        try (BufferedReader in = source.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                     : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), 1 << 16)) {
+            status = runner.run(in, out) == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            status = 2;
+        }
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            System.err.println("Could not save data: " + e.getMessage());
+            return 2;
+        }
+        return status;
+    }
+
+    // Run the HTTP service; blocks until the JVM is shut down (e.g. Ctrl-C)
+    public static int serve(int port) {
+        openPersistence();
+        RentalServer server;
+        try {
+            server = new RentalServer(fleet, bookings, quotes, availability, running, persistence, port,
+                    RentalServer.DEFAULT_MAX_IN_FLIGHT);
+        } catch (IOException e) {
+            System.err.println("Could not listen on port " + port + ": " + e.getMessage());
+            closePersistence();
+            return 2;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            closePersistence();
+        }));
+        server.start();
+        System.out.println("Serving on http://localhost:" + server.port() + "/ (Ctrl-C to stop)");
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    // Expose metrics over JMX, and start the periodic dump if configured
+    public static void startMetrics() {
+        try {
+            Metrics.registerMBeans();
+            Metrics.registerMBean(availability, "carrental:type=Cache,name=availability");
+            Metrics.registerMBean(feed, "carrental:type=ChangeFeed,name=changes");
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+        }
+        if (METRICS_INTERVAL <= 0) return;
+        try {
+            Writer out = METRICS_FILE == null
+                    ? new OutputStreamWriter(System.err, StandardCharsets.UTF_8)
+                    : Files.newBufferedWriter(Paths.get(METRICS_FILE), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            Metrics.startReporter(out, METRICS_INTERVAL, METRICS_FORMAT.equalsIgnoreCase("json"));
+        } catch (IOException e) {
+            System.err.println("Could not open metrics file " + METRICS_FILE + ": " + e.getMessage());
+        }
+    }
+
+    // Recover the fleet and bookings saved by earlier runs
+    public static void openPersistence() {
+        try {
+            persistence = Persistence.open(Paths.get(DATA_DIR), fleet, bookings);
+            System.out.println("Loaded " + fleet.size() + " cars and " + bookings.size() + " bookings.");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not load saved data (" + e.getMessage() + "); changes will not be saved.");
+        }
+        startAnalytics();
+    }
+
+    private static void startAnalytics() {
+        running = new RunningAggregates(fleet, bookings, quotes);
+    }
+
+    public static void closePersistence() {
+        if (persistence == null) return;
+        try {
+            persistence.close();
+        } catch (IOException e) {
+            System.out.println("Could not save data: " + e.getMessage());
+        }
+    }
+
+    // Make the last change durable before confirming it
+    private static void save() {
+        if (persistence == null) return;
+        try {
+            persistence.sync();
+        } catch (IOException e) {
+            System.out.println("Warning: change not saved to disk: " + e.getMessage());
+        }
+    }
+
+    public static void addCar() {
+        System.out.println("Adding a new car to the fleet");
+
+        System.out.print("Enter Car Model: ");
+        String model = sc.nextLine();
+
+        System.out.print("Enter Car Make: ");
+        String make = sc.nextLine();
+
+        System.out.print("Enter the current mileage: ");
+        int currentMileage = sc.nextInt();
+        sc.nextLine();  // ← FIX 1: consume leftover newline
+
+        System.out.print("Enter Rate per Day: ");
+        String ratePerDay = sc.nextLine();
+
+        System.out.print("Enter Car Type: ");
+        String type = sc.nextLine();
+
+        System.out.print("Enter Seating Capacity: ");
+        String seatingCapacity = sc.nextLine();
+
+        Cars newCar;
+        int id;
+        try {
+            newCar = new Cars(model, make, currentMileage, ratePerDay, type, seatingCapacity);
+            id = fleet.add(newCar);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        save();
+        System.out.println("New car added successfully! Vehicle id: " + id);
+        newCar.displayDetails();
+        System.out.println();
+    }
+
+    public static void viewCars() {
+        System.out.println("Viewing all cars in the fleet:");
+
+        if (fleet.size() == 0) {
+            System.out.println("No cars added yet.");
+            return;
+        }
+
+        System.out.print("Sort by (1: Id, 2: Make, 3: Price, 4: Mileage) [1]: ");
+        String sort = sc.nextLine().trim();
+        FleetLister.Order order;
+        switch (sort) {
+            case "2": order = FleetLister.Order.MAKE; break;
+            case "3": order = FleetLister.Order.RATE; break;
+            case "4": order = FleetLister.Order.MILEAGE; break;
+            default: order = FleetLister.Order.ID;
+        }
+
+        // One page at a time, each written with a single flush
+        FleetLister lister = new FleetLister(fleet);
+        Writer out = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8);
+        int offset = 0;
+        try {
+            while (offset >= 0) {
+                offset = lister.writePage(out, offset, PAGE_SIZE, order, FleetLister.Format.COMPACT);
+                if (offset < 0) break;
+                System.out.print("-- Enter for more, q to stop -- ");
+                if (sc.nextLine().trim().equalsIgnoreCase("q")) break;
+            }
+        } catch (IOException e) {
+            System.out.println("Could not list cars: " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    public static void bookCar() {
+        System.out.print("Enter Vehicle id: ");
+        String idText = sc.nextLine();
+        System.out.print("Enter Start Date (yyyy-MM-dd): ");
+        String startDate = sc.nextLine();
+        System.out.print("Enter Return Date (yyyy-MM-dd): ");
+        String endDate = sc.nextLine();
+
+        int vehicleId;
+        int startDay;
+        int endDay;
+        long reference;
+        try {
+            vehicleId = Integer.parseInt(idText.trim());
+            startDay = BookingEngine.parseDay(startDate);
+            endDay = BookingEngine.parseDay(endDate);
+            reference = bookings.book(vehicleId, startDay, endDay);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid vehicle id: " + idText);
+            return;
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date: " + e.getParsedString());
+            return;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        if (reference < 0) {
+            System.out.println("Sorry, that car is already booked for those dates.");
+            return;
+        }
+        save();
+        System.out.println("Booking confirmed! Reference: " + BookingEngine.formatReference(reference));
+        System.out.println("Total price: " + Money.format(quotes.quote(vehicleId, startDay, endDay)));
+        System.out.println();
+    }
+
+    public static void cancelBooking() {
+        System.out.print("Enter Booking Reference: ");
+        String text = sc.nextLine();
+
+        try {
+            if (bookings.cancel(BookingEngine.parseReference(text.trim()))) {
+                save();
+                System.out.println("Booking cancelled.");
+            } else {
+                System.out.println("No booking with reference " + text);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid booking reference: " + text);
+        }
+        System.out.println();
+    }
+
+    public static void availableCars() {
+        System.out.print("Enter Start Date (yyyy-MM-dd): ");
+        String startDate = sc.nextLine();
+        System.out.print("Enter Return Date (yyyy-MM-dd): ");
+        String endDate = sc.nextLine();
+
+        int startDay;
+        int endDay;
+        try {
+            startDay = BookingEngine.parseDay(startDate);
+            endDay = BookingEngine.parseDay(endDate);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date: " + e.getParsedString());
+            return;
+        }
+        if (endDay <= startDay) {
+            System.out.println("End date must be after start date");
+            return;
+        }
+        AvailabilityCache.Result free = availability.search(new FleetSearch.Query().availableBetween(startDay, endDay));
+
+        System.out.println("Cars available from " + startDate + " to " + endDate + ":");
+        if (free.ids.length == 0) {
+            System.out.println("No cars available.");
+        }
+        for (int i = 0; i < free.ids.length; i++) {
+            int id = free.ids[i];
+            System.out.println("#" + id + " " + fleet.getMake(id) + " " + fleet.getModel(id) + " - " + Money.format(free.prices[i]));
+        }
+        System.out.println();
+    }
+
+    // Filter by make, type, seats, price and dates; blank answers match anything
+    public static void searchCars() {
+        FleetSearch.Query q = new FleetSearch.Query().cheapestFirst().limit(PAGE_SIZE);
+        int startDay = -1;
+        int endDay = -1;
+        try {
+            String make = prompt("Make");
+            if (!make.isEmpty()) q.make(make);
+            String type = prompt("Type");
+            if (!type.isEmpty()) q.type(type);
+            String seats = prompt("Minimum seats");
+            if (!seats.isEmpty()) q.seats(Integer.parseInt(seats), Integer.MAX_VALUE);
+            String rate = prompt("Maximum rate per day");
+            if (!rate.isEmpty()) q.rate(0, Money.parseCents(rate));
+            String startDate = prompt("Start Date (yyyy-MM-dd)");
+            if (!startDate.isEmpty()) {
+                startDay = BookingEngine.parseDay(startDate);
+                endDay = BookingEngine.parseDay(prompt("Return Date (yyyy-MM-dd)"));
+                q.availableBetween(startDay, endDay);
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date: " + e.getParsedString());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid search: " + e.getMessage());
+            return;
+        }
+
+        AvailabilityCache.Result free = startDay < 0 ? null : availability.search(q);
+        int[] ids = free == null ? search.search(q) : free.ids;
+        System.out.println("Cheapest " + ids.length + " matching cars:");
+        if (ids.length == 0) {
+            System.out.println("No cars match.");
+        }
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            String price = free == null ? Money.format(fleet.getRateCents(id)) + "/day" : Money.format(free.prices[i]);
+            System.out.println("#" + id + " " + fleet.getMake(id) + " " + fleet.getModel(id) + " (" + fleet.getType(id)
+                    + ", " + fleet.getSeatingCapacity(id) + ") - " + price);
+        }
+        System.out.println();
+    }
+
+    private static String prompt(String label) {
+        System.out.print(label + " (blank for any): ");
+        return sc.nextLine().trim();
+    }
+
+    public static void fleetReport() {
+        System.out.print("Enter Start Date (yyyy-MM-dd): ");
+        String startDate = sc.nextLine();
+        System.out.print("Enter End Date (yyyy-MM-dd): ");
+        String endDate = sc.nextLine();
+
+        FleetAnalytics.Report report;
+        try {
+            report = analytics.report(BookingEngine.parseDay(startDate), BookingEngine.parseDay(endDate));
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date: " + e.getParsedString());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        System.out.println(report);
+    }
+
+    public static void importCars() {
+        System.out.print("Enter CSV file to import: ");
+        String file = sc.nextLine().trim();
+
+        FleetCsv.ImportReport report;
+        try {
+            report = FleetCsv.importCsv(Paths.get(file), fleet);
+        } catch (IOException e) {
+            System.out.println("Could not read " + file + ": " + e.getMessage());
+            return;
+        }
+        save();
+
+        System.out.println(report);
+        for (String error : report.errors) System.out.println("  " + error);
+        if (report.errors.size() < report.rejected) {
+            System.out.println("  ... and " + (report.rejected - report.errors.size()) + " more");
+        }
+        System.out.println();
+    }
+
+    public static void exportCars() {
+        System.out.print("Enter CSV file to export to: ");
+        String file = sc.nextLine().trim();
+
+        try {
+            int count = FleetCsv.exportCsv(Paths.get(file), fleet);
+            System.out.println(count + " cars exported to " + file);
+        } catch (IOException e) {
+            System.out.println("Could not write " + file + ": " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    public static void selector() {
+        while (true) {
+            System.out.println("Menu - Select an option:");
+            System.out.println("1: View Cars");
+            System.out.println("2: Add Car");
+            System.out.println("3: Book Car");
+            System.out.println("4: Cancel Booking");
+            System.out.println("5: Available Cars");
+            System.out.println("6: Import Cars (CSV)");
+            System.out.println("7: Export Cars (CSV)");
+            System.out.println("8: Search Cars");
+            System.out.println("9: Fleet Report");
+            System.out.println("10: Exit");
+
+            System.out.print("Choice: ");
+            int choice = sc.nextInt();
+            sc.nextLine(); // ← FIX 2: consume leftover newline
+            System.out.println();
+
+            switch (choice) {
+                case 1:
+                    viewCars();
+                    break;
+
+                case 2:
+                    addCar();
+                    break;
+
+                case 3:
+                    bookCar();
+                    break;
+
+                case 4:
+                    cancelBooking();
+                    break;
+
+                case 5:
+                    availableCars();
+                    break;
+
+                case 6:
+                    importCars();
+                    break;
+
+                case 7:
+                    exportCars();
+                    break;
+
+                case 8:
+                    searchCars();
+                    break;
+
+                case 9:
+                    fleetReport();
+                    break;
+
+                case 10:
+                    System.out.println("Goodbye!");
+                    return;
+
+                default:
+                    System.out.println("Invalid option!");
+            }
+        }
+    }
+}
+
+
+
+
+
+
+// import java.util.Scanner;
+
+
+// public class App {
+//     public static Vehicle[] vehicle = new Vehicle[10];
+//     booking[] bookings = new booking[10];
+    
+//     public static void main(String[] args) {
+//         System.out.println("************** Welcome to CAR RENTAL MANAGEMENT *****************");
+//         selector();
+      
+       
+//     }
+
+//     public static  void addCar(){
+//         int vehicleCount = 0;
+//         Scanner sc = new Scanner(System.in);
+//         System.out.println("Adding a new car to the fleet");
+//         System.out.print("Enter Car Model:");
+//         String model = sc.nextLine();
+//         System.out.print("Enter Car Make:");
+//         String make = sc.nextLine();
+//         System.out.print("Enter the current millege");
+//         int currentMillege = sc.nextInt();
+//         System.out.print("Enter Rate per Day:");
+//         String ratePerDay = sc.nextLine();
+//         System.out.println("Enter Car Type:");
+//         String type = sc.nextLine();
+//         System.out.print("Enter Seating Capacity:");
+//         String seatingCapacity = sc.nextLine();
+//         Vehicle newCar = new Cars(model, make, currentMillege, ratePerDay, type, seatingCapacity);
+//         System.out.println("New car added successfully!");
+//         newCar.displayDetails();
+//         sc.close();
+//         vehicle[vehicleCount] = newCar;
+//         vehicleCount++;
+//     }
+
+//     public static void viewCars(){
+//         System.out.println("Viewing all cars in the fleet:");
+//         for(int i=0; i<vehicle.length; i++){
+//             System.out.println("Make" + " " +vehicle[i].getMake() );
+//             System.out.println("Model" +" " +vehicle[i].getModel());
+//         }
+//         }
+
+//     public static void selector(){
+//         Scanner sc = new Scanner(System.in);
+//         System.out.println("Select a car to book:");
+//         System.out.println("1: View Cars");
+//         System.out.println("2: Add Car");
+//         int choice = sc.nextInt();
+
+//         while(true){
+
+        
+//         switch(choice){
+//             case 1:
+//             viewCars();
+         
+//             break;
+//             case 2:
+//             addCar();
+            
+           
+    
+//         }
+//     }
+// }
+//     }
+
+
+
+
+
+
+   
+
@@ -0,0 +1,379 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AvailabilityCache: bounded LRU cache of "free cars and their prices" search results.
+ *
+ * Keyed by the whole query (filters + date range). A hit returns the stored ids and
+ * quotes without touching FleetSearch, BookingEngine or QuoteEngine.
+ *
+ * Invalidation is precise: as a RentalListener the cache sees every booking change,
+ * new car and lifecycle move, and drops only the entries it can affect, i.e. whose date
+ * range overlaps the change and
+ * - for a new booking or a car going into MAINTENANCE (all dates): the vehicle is in
+ *   the cached result (it is no longer free);
+ * - for a cancellation, a new car or a car made AVAILABLE (all dates): the vehicle is
+ *   not in the result but passes the entry's filters (it may now be free).
+ * Overlapping entries are found through an index on start day, searched back by the
+ * longest cached range (the same scheme as BookingEngine's start index), and each entry
+ * keeps its ids sorted, so "is the vehicle listed" is a binary search.
+ *
+ * Listeners are called inside BookingEngine's stripe locks and FleetStore's monitor,
+ * so they only queue the change. A booking change also applies the queue if the cache
+ * lock is free at that moment; it never waits for it. A new car is only queued: it can
+ * affect any entry, so applying it scans them all, and that must not happen once per
+ * row of an import while the fleet is locked. Past BULK_ADD new cars between two
+ * drains they are no longer queued one by one; the next drain empties the cache once.
+ * Every lookup applies whatever is still queued first, so a search never sees an
+ * entry a reported change has made stale.
+ *
+ * A miss computes its result outside the lock. The last RECENT changes are remembered,
+ * so before storing the result the cache checks whether any change since the miss
+ * began affects it (by the same rules); if so the result is returned but not stored.
+ *
+ * Per-vehicle checks (BookingEngine.isFree, QuoteEngine.quote) are not cached: they
+ * already cost less than a cache lookup.
+ */
+public class AvailabilityCache implements RentalListener, AvailabilityCacheMBean {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    private static final int BULK_ADD = 64;
+
+    private final FleetSearch search;
+    private final QuoteEngine quotes;
+    private final int capacity;
+
+    // Changes reported by listeners and not yet applied
+    private final ConcurrentLinkedQueue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedAdds = new AtomicInteger(); // cars added since the last drain
+    private volatile boolean bulkAdd;                              // more than BULK_ADD of them
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // All state below is guarded by lock
+    private final LinkedHashMap<FleetSearch.Query, Entry> entries;
+    private final TreeMap<Long, Entry> byStart = new TreeMap<>(); // (fromDay << 32 | serial)
+    private int longestRange;
+    private int nextSerial;
+    private long changes;  // changes applied so far; change c is kept at recent[c & (RECENT - 1)]
+
+    private static final int RECENT = 1024;
+    private final Change[] recent = new Change[RECENT];
+
+    // Written under lock, read without it
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long evictions;
+    private volatile long invalidations;
+
+    // Cached search result: vehicle ids (cheapest first) and their prices in cents.
+    // Shared between callers, so treat the arrays as read-only.
+    public static final class Result {
+        public final int[] ids;
+        public final long[] prices;
+
+        Result(int[] ids, long[] prices) {
+            this.ids = ids;
+            this.prices = prices;
+        }
+    }
+
+    private static final class Entry {
+        final FleetSearch.Query query;
+        final long indexKey;
+        final Result result;
+        final int[] listed; // result.ids in id order
+
+        Entry(FleetSearch.Query query, long indexKey, Result result, int[] listed) {
+            this.query = query;
+            this.indexKey = indexKey;
+            this.result = result;
+            this.listed = listed;
+        }
+    }
+
+    // A booking change on vehicleId over [startDay, endDay), or a change on all days (a new
+    // car or a lifecycle move)
+    private static final class Change {
+        final int vehicleId;
+        final int startDay;
+        final int endDay;
+        final boolean freed;
+
+        Change(int vehicleId, int startDay, int endDay, boolean freed) {
+            this.vehicleId = vehicleId;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.freed = freed;
+        }
+
+        boolean allDays() {
+            return startDay == Integer.MIN_VALUE;
+        }
+    }
+
+    // Stands for a bulk import in the recent changes: it affects every result
+    private static final Change BULK = new Change(0, Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+
+    public AvailabilityCache(FleetStore fleet, BookingEngine bookings, FleetSearch search, QuoteEngine quotes,
+                             int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.search = search;
+        this.quotes = quotes;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(Math.min(capacity, 1 << 16) * 4 / 3 + 1, 0.75f, true);
+        fleet.addListener(this);
+        bookings.addListener(this);
+    }
+
+    // Free vehicles matching q with their quotes; q must set availableBetween
+    public Result search(FleetSearch.Query q) {
+        if (!q.availability) throw new IllegalArgumentException("Availability search needs a date range");
+        long seen;
+        lock.lock();
+        try {
+            drain();
+            Entry e = entries.get(q);
+            if (e != null) {
+                hits++;
+                return e.result;
+            }
+            misses++;
+            seen = changes;
+        } finally {
+            lock.unlock();
+        }
+
+        int[] ids = search.search(q);
+        long[] prices = new long[ids.length];
+        quotes.quoteRange(ids, ids.length, q.fromDay, q.toDay, prices);
+        Result result = new Result(ids, prices);
+        int[] listed = ids.clone();
+        Arrays.sort(listed);
+
+        lock.lock();
+        try {
+            drain();
+            if (!changedSince(seen, q, listed) && !entries.containsKey(q)) put(q.copy(), result, listed);
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    private void put(FleetSearch.Query key, Result result, int[] listed) {
+        Entry e = new Entry(key, ((long) key.fromDay << 32) | (nextSerial++ & 0xFFFFFFFFL), result, listed);
+        entries.put(key, e);
+        byStart.put(e.indexKey, e);
+        longestRange = Math.max(longestRange, key.toDay - key.fromDay);
+
+        if (entries.size() > capacity) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            byStart.remove(eldest.next().indexKey);
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    @Override
+    public void booked(long reference, int startDay, int endDay) {
+        report(new Change(BookingEngine.vehicleOf(reference), startDay, endDay, false));
+    }
+
+    @Override
+    public void cancelled(long reference, int startDay, int endDay) {
+        report(new Change(BookingEngine.vehicleOf(reference), startDay, endDay, true));
+    }
+
+    // Queued without draining (see the class comment); the next lookup applies it
+    @Override
+    public void carAdded(int vehicleId, Cars car) {
+        if (queuedAdds.incrementAndGet() > BULK_ADD) {
+            bulkAdd = true;
+            return;
+        }
+        pending.add(new Change(vehicleId, Integer.MIN_VALUE, Integer.MAX_VALUE, true));
+    }
+
+    // Into MAINTENANCE the car stops being free; back to AVAILABLE it may be free again.
+    // Other moves do not change availability.
+    @Override
+    public void stateChanged(int vehicleId, VehicleState state) {
+        if (state == VehicleState.MAINTENANCE || state == VehicleState.AVAILABLE) {
+            report(new Change(vehicleId, Integer.MIN_VALUE, Integer.MAX_VALUE, state == VehicleState.AVAILABLE));
+        }
+    }
+
+    // Nothing is cached before recovery ends, but drop anything that was
+    @Override
+    public void recovered() {
+        lock.lock();
+        try {
+            drain();
+            invalidations += entries.size();
+            clearEntries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Queue a change, and apply the queue now if nobody holds the lock
+    private void report(Change change) {
+        pending.add(change);
+        if (lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Apply every queued change (lock held)
+    private void drain() {
+        if (bulkAdd) {
+            // Reset before emptying, so cars added from here on are caught by the next drain
+            bulkAdd = false;
+            queuedAdds.set(0);
+            pending.removeIf(Change::allDays); // the clear covers them
+            recent[(int) (changes++ & (RECENT - 1))] = BULK;
+            invalidations += entries.size();
+            clearEntries();
+        } else if (queuedAdds.get() > 0) {
+            queuedAdds.set(0);
+        }
+        for (Change c; (c = pending.poll()) != null; ) {
+            recent[(int) (changes++ & (RECENT - 1))] = c;
+            invalidateOverlapping(c);
+        }
+    }
+
+    // Whether a change applied after the first `seen` changes can affect this result
+    private boolean changedSince(long seen, FleetSearch.Query q, int[] listed) {
+        if (changes - seen > RECENT) return true;
+        for (long c = seen; c < changes; c++) {
+            Change change = recent[(int) (c & (RECENT - 1))];
+            if (change.startDay < q.toDay && change.endDay > q.fromDay && affects(q, listed, change)) return true;
+        }
+        return false;
+    }
+
+    // Whether a change overlapping q's dates can change q's result
+    private boolean affects(FleetSearch.Query q, int[] listed, Change change) {
+        if (change == BULK) return true;
+        boolean isListed = Arrays.binarySearch(listed, change.vehicleId) >= 0;
+        return change.freed ? !isListed && search.matchesAttributes(q, change.vehicleId) : isListed;
+    }
+
+    // Drop the entries overlapping the change's dates that it can affect
+    private void invalidateOverlapping(Change change) {
+        if (entries.isEmpty()) return;
+        long from = change.allDays() ? Long.MIN_VALUE : (long) (change.startDay - longestRange) << 32;
+        long to = change.allDays() ? Long.MAX_VALUE : (long) change.endDay << 32;
+        for (Iterator<Entry> it = byStart.subMap(from, true, to, false).values().iterator(); it.hasNext(); ) {
+            Entry e = it.next();
+            if (e.query.toDay <= change.startDay) continue;
+            if (affects(e.query, e.listed, change)) {
+                it.remove();
+                entries.remove(e.query);
+                invalidations++;
+            }
+        }
+    }
+
+    private void clearEntries() {
+        entries.clear();
+        byStart.clear();
+        longestRange = 0;
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            clearEntries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public double getHitRatio() {
+        long h = hits;
+        long lookups = h + misses;
+        return lookups == 0 ? 0 : (double) h / lookups;
+    }
+
+    @Override
+    public void resetStats() {
+        lock.lock();
+        try {
+            hits = misses = evictions = invalidations = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // {"size":..,"capacity":..,"hits":..,"misses":..,"evictions":..,"invalidations":..}
+    public void appendJson(StringBuilder sb) {
+        lock.lock();
+        try {
+            sb.append("{\"size\":").append(entries.size()).append(",\"capacity\":").append(capacity)
+                    .append(",\"hits\":").append(hits).append(",\"misses\":").append(misses)
+                    .append(",\"evictions\":").append(evictions).append(",\"invalidations\":").append(invalidations)
+                    .append('}');
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "AvailabilityCache: " + entries.size() + "/" + capacity + " entries, " + hits + " hits, "
+                    + misses + " misses, " + evictions + " evictions, " + invalidations + " invalidations";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
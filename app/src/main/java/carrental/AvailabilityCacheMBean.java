@@ -0,0 +1,24 @@
+package carrental;
+
+/**
+ * AvailabilityCacheMBean: JMX view of the AvailabilityCache statistics.
+ *
+ * Registered as carrental:type=Cache,name=availability.
+ */
+public interface AvailabilityCacheMBean {
+    int getSize();
+
+    int getCapacity();
+
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    long getInvalidations();
+
+    double getHitRatio();
+
+    void resetStats();
+}
@@ -0,0 +1,267 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BatchAssigner: books "any car of this type with at least N seats for these dates"
+ * requests in bulk, choosing the vehicle for each.
+ *
+ * Requests are grouped by type (the vehicle class) and each class is planned as an
+ * independent fork-join task, since no vehicle belongs to two classes. Within a class:
+ * - the free time of every vehicle over the batch's horizon is cut into gaps between
+ *   its existing bookings, kept per seat count in a set ordered by gap start;
+ * - requests are taken in order of start day, and each goes into the smallest seat
+ *   count that fits, into the gap that starts latest at or before the pickup day and,
+ *   among those, ends soonest after the return day (best fit). That packs rentals
+ *   back to back on cars already in use, keeping other cars free for long rentals
+ *   instead of scattering short idle gaps over the whole fleet;
+ * - the chosen gap is split around the rental and the leftovers go back in the set.
+ * Because pickup days only increase, gaps that end before the current pickup day can
+ * never be used again and are dropped as the scan meets them, so each request looks at
+ * only a few gaps regardless of fleet size.
+ *
+ * This is a greedy heuristic, not an exact optimum. Plans are then committed through
+ * BookingEngine.book; a request that loses its car to a concurrent booking made
+ * outside the batch is reported as unassigned. A car that goes into maintenance after
+ * planning is dropped from the plan and the request tries the next best gap.
+ */
+public class BatchAssigner {
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+
+    public BatchAssigner(FleetStore fleet, BookingEngine bookings) {
+        this.fleet = fleet;
+        this.bookings = bookings;
+    }
+
+    // One pending request; type null means any type
+    public static final class Request {
+        public final String type;
+        public final int seats;
+        public final int startDay;
+        public final int endDay;
+
+        public Request(String type, int seats, int startDay, int endDay) {
+            if (endDay <= startDay) throw new IllegalArgumentException("End date must be after start date");
+            if (startDay < BookingEngine.MIN_DAY || endDay > BookingEngine.MAX_DAY) {
+                throw new IllegalArgumentException("Bookings must be between "
+                        + BookingEngine.formatDay(BookingEngine.MIN_DAY) + " and "
+                        + BookingEngine.formatDay(BookingEngine.MAX_DAY));
+            }
+            this.type = type;
+            this.seats = seats;
+            this.startDay = startDay;
+            this.endDay = endDay;
+        }
+    }
+
+    // Book every request it can; result[i] is the booking reference for requests[i], or -1
+    public long[] assign(List<Request> requests) {
+        long[] result = new long[requests.size()];
+        Arrays.fill(result, -1);
+        if (requests.isEmpty()) return result;
+
+        // Group request indexes by type code; unknown types cannot be served
+        int types = fleet.types().size();
+        List<List<Integer>> byType = new ArrayList<>(types);
+        for (int t = 0; t < types; t++) byType.add(new ArrayList<>());
+        List<Integer> anyType = new ArrayList<>();
+        int horizonStart = Integer.MAX_VALUE;
+        int horizonEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < requests.size(); i++) {
+            Request r = requests.get(i);
+            horizonStart = Math.min(horizonStart, r.startDay);
+            horizonEnd = Math.max(horizonEnd, r.endDay);
+            if (r.type == null) {
+                anyType.add(i);
+            } else {
+                int code = fleet.types().lookup(r.type);
+                if (code >= 0 && code < types) byType.get(code).add(i);
+            }
+        }
+
+        // One plan per class that has requests (or every class, if some requests take any type)
+        ClassPlan[] plans = new ClassPlan[types];
+        List<ClassPlan> tasks = new ArrayList<>();
+        int[][] vehiclesByType = vehiclesByType(types);
+        for (int t = 0; t < types; t++) {
+            if (byType.get(t).isEmpty() && anyType.isEmpty()) continue;
+            plans[t] = new ClassPlan(vehiclesByType[t], horizonStart, horizonEnd, requests, byType.get(t), result,
+                    anyType.isEmpty());
+            tasks.add(plans[t]);
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        // Any-type requests go, one by one, to the class offering the fewest adequate seats
+        anyType.sort(Comparator.comparingInt(i -> requests.get(i).startDay));
+        for (int i : anyType) {
+            Request r = requests.get(i);
+            ClassPlan best = null;
+            int bestSeats = Integer.MAX_VALUE;
+            for (ClassPlan plan : plans) {
+                if (plan == null) continue;
+                int seats = plan.fittingSeats(r);
+                if (seats < bestSeats) {
+                    bestSeats = seats;
+                    best = plan;
+                }
+            }
+            if (best != null) result[i] = best.place(r, true);
+        }
+        return result;
+    }
+
+    private int[][] vehiclesByType(int types) {
+        int n = fleet.size();
+        int[] counts = new int[types];
+        for (int id = 1; id <= n; id++) {
+            int t = fleet.typeCode(id);
+            if (t < types) counts[t]++;
+        }
+        int[][] ids = new int[types][];
+        for (int t = 0; t < types; t++) ids[t] = new int[counts[t]];
+        Arrays.fill(counts, 0);
+        for (int id = 1; id <= n; id++) {
+            int t = fleet.typeCode(id);
+            if (t < types) ids[t][counts[t]++] = id;
+        }
+        return ids;
+    }
+
+    // A free stretch [start, end) of one vehicle
+    private static final class Gap {
+        final int start;
+        final int end;
+        final int vehicleId;
+
+        Gap(int start, int end, int vehicleId) {
+            this.start = start;
+            this.end = end;
+            this.vehicleId = vehicleId;
+        }
+    }
+
+    // Start ascending, then end descending, then vehicle: iterating a head set backwards
+    // meets the latest-starting gaps first and, among equal starts, the shortest first
+    private static final Comparator<Gap> GAP_ORDER = (a, b) -> {
+        if (a.start != b.start) return Integer.compare(a.start, b.start);
+        if (a.end != b.end) return Integer.compare(b.end, a.end);
+        return Integer.compare(a.vehicleId, b.vehicleId);
+    };
+
+    // Plans and books the requests of one vehicle class
+    private final class ClassPlan extends RecursiveAction {
+        private final List<Request> requests;
+        private final List<Integer> mine;
+        private final long[] result;
+        private final boolean prune;  // false if any-type requests will be placed afterwards
+        private final int[] vehicles;
+        private final int horizonStart;
+        private final int horizonEnd;
+
+        // Gap sets per seat count, smallest seat count first
+        private final TreeMap<Integer, TreeSet<Gap>> gapsBySeats = new TreeMap<>();
+        // Cars that went into maintenance after planning; their gaps are dropped when met
+        private final Set<Integer> withdrawn = new HashSet<>();
+
+        ClassPlan(int[] vehicles, int horizonStart, int horizonEnd, List<Request> requests, List<Integer> mine,
+                  long[] result, boolean prune) {
+            this.requests = requests;
+            this.mine = mine;
+            this.result = result;
+            this.prune = prune;
+            this.vehicles = vehicles;
+            this.horizonStart = horizonStart;
+            this.horizonEnd = horizonEnd;
+        }
+
+        @Override
+        protected void compute() {
+            buildGaps();
+            mine.sort(Comparator.comparingInt(i -> requests.get(i).startDay));
+            for (int i : mine) result[i] = place(requests.get(i), prune);
+        }
+
+        private void buildGaps() {
+            // Open-ended gaps are clipped one day outside the horizon, so every empty car
+            // looks the same and a car with a booking nearby always fits tighter
+            int before = horizonStart - 1;
+            int after = horizonEnd + 1;
+            for (int id : vehicles) {
+                if (fleet.getState(id) == VehicleState.MAINTENANCE) continue;
+                TreeSet<Gap> gaps = gapsBySeats.computeIfAbsent(fleet.getSeats(id), k -> new TreeSet<>(GAP_ORDER));
+                IntervalSchedule schedule = bookings.schedule(id);
+                int free = before;
+                if (schedule != null) {
+                    for (int i = 0; i < schedule.size(); i++) {
+                        int start = schedule.startAt(i);
+                        int end = schedule.endAt(i);
+                        if (end <= horizonStart) continue;
+                        if (start >= horizonEnd) break;
+                        if (start > free) gaps.add(new Gap(free, start, id));
+                        free = Math.max(free, end);
+                    }
+                }
+                if (free < after) gaps.add(new Gap(free, after, id));
+            }
+        }
+
+        // Smallest seat count with a gap for r, or Integer.MAX_VALUE
+        int fittingSeats(Request r) {
+            for (var entry : gapsBySeats.tailMap(r.seats, true).entrySet()) {
+                if (bestFit(entry.getValue(), r, false) != null) return entry.getKey();
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        // Book r into the best gap of the smallest seat count that has one; returns the reference or -1
+        long place(Request r, boolean prune) {
+            retry:
+            while (true) {
+                for (TreeSet<Gap> gaps : gapsBySeats.tailMap(r.seats, true).values()) {
+                    Gap gap = bestFit(gaps, r, prune);
+                    if (gap == null) continue;
+
+                    gaps.remove(gap);
+                    if (gap.start < r.startDay) gaps.add(new Gap(gap.start, r.startDay, gap.vehicleId));
+                    if (r.endDay < gap.end) gaps.add(new Gap(r.endDay, gap.end, gap.vehicleId));
+                    try {
+                        return bookings.book(gap.vehicleId, r.startDay, r.endDay);
+                    } catch (IllegalStateException e) {
+                        // Went into maintenance since buildGaps: drop its gaps and look again
+                        withdrawn.add(gap.vehicleId);
+                        continue retry;
+                    }
+                }
+                return -1;
+            }
+        }
+
+        // Latest-starting gap containing [r.startDay, r.endDay), shortest among equal starts.
+        // With prune, drops gaps that end by r.startDay (only valid while requests arrive in start order).
+        private Gap bestFit(TreeSet<Gap> gaps, Request r, boolean prune) {
+            NavigableSet<Gap> candidates = gaps.headSet(new Gap(r.startDay, Integer.MIN_VALUE, Integer.MAX_VALUE), true);
+            for (Iterator<Gap> it = candidates.descendingIterator(); it.hasNext(); ) {
+                Gap gap = it.next();
+                if (withdrawn.contains(gap.vehicleId)) {
+                    it.remove();
+                    continue;
+                }
+                if (gap.end >= r.endDay) return gap;
+                if (prune && gap.end <= r.startDay) it.remove();
+            }
+            return null;
+        }
+    }
+}
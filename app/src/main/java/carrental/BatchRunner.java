@@ -0,0 +1,367 @@
+package carrental;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * BatchRunner: non-interactive command mode, for scripts and replays.
+ *
+ * Reads one command per line (from a file or a stdin pipe) and writes one result line
+ * per command, prefixed with the command's line number. Blank lines and lines starting
+ * with # are ignored.
+ *
+ *   add model,make,mileage,rate,type,seats   -> OK <vehicleId>
+ *   view <vehicleId>                          -> OK model,make,mileage,rate,type,seats
+ *   count                                     -> OK <cars> <bookings>
+ *   book <vehicleId> <start> <end>            -> OK <reference> <price> | CONFLICT
+ *   cancel <reference>                        -> OK | NOT_FOUND
+ *   free <vehicleId> <start> <end>            -> OK true|false
+ *   query <start> <end>                       -> OK <count> <id> <id> ...
+ *   search [key=value ...]                    -> OK <count> <id> <id> ...
+ *       keys: make, type, seats=min[-max], rate=min[-max], from, to, sort=price|id, limit
+ *   list <offset> <limit> [order]             -> OK {"offset":..,"total":..,"cars":[..],"next":..}
+ *   import <csvFile> / export <csvFile>       -> OK <imported> <rejected> / OK <written>
+ *   metrics                                   -> OK {"time":..,"operations":{..}}
+ *   cache                                     -> OK {"size":..,"hits":..,"misses":..,..}
+ *   report <from> <to>                        -> OK {"utilizationByMake":{..},"revenueByDay":{..},..}
+ *   live <from> <to>                          -> OK {"bookings":..,"days":{..},..} (running totals)
+ *   pickup <vehicleId> <date> <km>            -> OK
+ *   return <vehicleId> <date> <km>            -> OK <kmDriven> [SERVICE_DUE]
+ *   service <vehicleId> <date> <km>           -> OK
+ *   state <vehicleId> [available|reserved|maintenance] -> OK <state> | REFUSED <state>
+ *       shows or changes the lifecycle state; pickup/return move to RENTED/RETURNED
+ *   odometer <vehicleId> <from> <to>          -> OK <kmDriven> <readingAtFrom> <readingAtTo>
+ *   servicedue [intervalKm]                   -> OK <count> <id> <id> ...
+ *   request <type|any> <seats> <start> <end>  -> OK queued <pending>
+ *   assign                                    -> OK <assigned> <unassigned> <reference|-> ...
+ *       books all queued requests at once (BatchAssigner), results in request order
+ *
+ * Dates are yyyy-MM-dd. Errors produce "ERROR <message>" and do not stop the run.
+ *
+ * Commands run in batches of batchSize: results go to one buffered writer that is
+ * flushed once per batch, and persistence is synced once per batch (so a whole batch
+ * shares one fsync instead of one per command).
+ */
+public class BatchRunner {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+    private final QuoteEngine quotes;
+    private final FleetSearch search;
+    private final AvailabilityCache availability;
+    private final FleetAnalytics analytics;
+    private final RunningAggregates running;
+    private final BatchAssigner assigner;
+    private final List<BatchAssigner.Request> pending = new ArrayList<>();
+    private final Persistence persistence; // null when running in memory only
+    private final int batchSize;
+
+    private final FleetLister lister;
+    private final String[] fields = new String[6];
+    private final StringBuilder line = new StringBuilder(256);
+    private int prefixLength;  // length of the "<lineNo> " prefix in line
+    private boolean failed;    // the current command produced an ERROR
+
+    public BatchRunner(FleetStore fleet, BookingEngine bookings, QuoteEngine quotes, FleetSearch search,
+                       AvailabilityCache availability, RunningAggregates running, Persistence persistence,
+                       int batchSize) {
+        this.fleet = fleet;
+        this.bookings = bookings;
+        this.quotes = quotes;
+        this.search = search;
+        this.availability = availability;
+        this.analytics = new FleetAnalytics(fleet, bookings, quotes);
+        this.running = running;
+        this.assigner = new BatchAssigner(fleet, bookings);
+        this.persistence = persistence;
+        this.batchSize = batchSize;
+        this.lister = new FleetLister(fleet);
+    }
+
+    // Run every command in `in`, writing results to `out`. Returns the number of errors.
+    public int run(BufferedReader in, Writer out) throws IOException {
+        int errors = 0;
+        int inBatch = 0;
+        long lineNo = 0;
+
+        String command;
+        while ((command = in.readLine()) != null) {
+            lineNo++;
+            command = command.trim();
+            if (command.isEmpty() || command.startsWith("#")) continue;
+
+            line.setLength(0);
+            line.append(lineNo).append(' ');
+            prefixLength = line.length();
+            failed = false;
+            try {
+                execute(command);
+            } catch (NumberFormatException e) {
+                error("invalid number: " + e.getMessage());
+            } catch (DateTimeParseException e) {
+                error("invalid date: " + e.getParsedString());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                error(e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                // e.g. a missing import file: this command fails, the script goes on
+                error(e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+            if (failed) errors++;
+            line.append('\n');
+            out.append(line);
+
+            if (++inBatch == batchSize) {
+                endBatch(out);
+                inBatch = 0;
+            }
+        }
+        endBatch(out);
+        return errors;
+    }
+
+    private void endBatch(Writer out) throws IOException {
+        if (persistence != null) persistence.sync();
+        out.flush();
+    }
+
+    private void execute(String command) throws IOException {
+        int space = command.indexOf(' ');
+        String name = space < 0 ? command : command.substring(0, space);
+        String rest = space < 0 ? "" : command.substring(space + 1).trim();
+        String[] args = rest.isEmpty() ? new String[0] : rest.split("\\s+");
+
+        switch (name.toLowerCase()) {
+            case "add":
+                add(rest);
+                break;
+            case "view":
+                expect(args, 1, "view <vehicleId>");
+                view(Integer.parseInt(args[0]));
+                break;
+            case "count":
+                line.append("OK ").append(fleet.size()).append(' ').append(bookings.size());
+                break;
+            case "book":
+                expect(args, 3, "book <vehicleId> <start> <end>");
+                book(Integer.parseInt(args[0]), BookingEngine.parseDay(args[1]), BookingEngine.parseDay(args[2]));
+                break;
+            case "cancel":
+                expect(args, 1, "cancel <reference>");
+                line.append(bookings.cancel(BookingEngine.parseReference(args[0])) ? "OK" : "NOT_FOUND");
+                break;
+            case "free":
+                expect(args, 3, "free <vehicleId> <start> <end>");
+                line.append("OK ").append(bookings.isFree(Integer.parseInt(args[0]),
+                        BookingEngine.parseDay(args[1]), BookingEngine.parseDay(args[2])));
+                break;
+            case "query":
+                expect(args, 2, "query <start> <end>");
+                query(BookingEngine.parseDay(args[0]), BookingEngine.parseDay(args[1]));
+                break;
+            case "metrics":
+                line.append("OK ");
+                Metrics.appendJson(line);
+                break;
+            case "cache":
+                line.append("OK ");
+                availability.appendJson(line);
+                break;
+            case "report":
+                expect(args, 2, "report <from> <to>");
+                line.append("OK ");
+                analytics.report(BookingEngine.parseDay(args[0]), BookingEngine.parseDay(args[1])).appendJson(line);
+                break;
+            case "live": {
+                expect(args, 2, "live <from> <to>");
+                int from = BookingEngine.parseDay(args[0]);
+                int to = BookingEngine.parseDay(args[1]);
+                line.append("OK ");
+                running.appendJson(line, from, to);
+                break;
+            }
+            case "search":
+                search(args);
+                break;
+            case "pickup":
+                expect(args, 3, "pickup <vehicleId> <date> <km>");
+                fleet.startRental(Integer.parseInt(args[0]), BookingEngine.parseDay(args[1]), Integer.parseInt(args[2]));
+                line.append("OK");
+                break;
+            case "return": {
+                expect(args, 3, "return <vehicleId> <date> <km>");
+                int id = Integer.parseInt(args[0]);
+                int km = fleet.endRental(id, BookingEngine.parseDay(args[1]), Integer.parseInt(args[2]));
+                line.append("OK ").append(km);
+                if (fleet.odometer().isServiceDue(id, OdometerLog.DEFAULT_SERVICE_INTERVAL_KM)) line.append(" SERVICE_DUE");
+                break;
+            }
+            case "state": {
+                if (args.length < 1 || args.length > 2) {
+                    throw new IllegalArgumentException("usage: state <vehicleId> [available|reserved|maintenance]");
+                }
+                int id = Integer.parseInt(args[0]);
+                boolean moved = true;
+                if (args.length == 2) {
+                    VehicleState target = VehicleState.valueOf(args[1].toUpperCase());
+                    moved = fleet.moveState(id, target);
+                }
+                line.append(moved ? "OK " : "REFUSED ").append(fleet.getState(id));
+                break;
+            }
+            case "service":
+                expect(args, 3, "service <vehicleId> <date> <km>");
+                fleet.recordService(Integer.parseInt(args[0]), BookingEngine.parseDay(args[1]), Integer.parseInt(args[2]));
+                line.append("OK");
+                break;
+            case "odometer": {
+                expect(args, 3, "odometer <vehicleId> <from> <to>");
+                int id = Integer.parseInt(args[0]);
+                int fromDay = BookingEngine.parseDay(args[1]);
+                int toDay = BookingEngine.parseDay(args[2]);
+                if (toDay < fromDay) throw new IllegalArgumentException("End date must not be before start date");
+                int from = fleet.odometer().asOf(id, fromDay);
+                int to = fleet.odometer().asOf(id, toDay);
+                line.append("OK ").append(to - from).append(' ').append(from).append(' ').append(to);
+                break;
+            }
+            case "servicedue": {
+                if (args.length > 1) throw new IllegalArgumentException("usage: servicedue [intervalKm]");
+                int interval = args.length == 1 ? Integer.parseInt(args[0]) : OdometerLog.DEFAULT_SERVICE_INTERVAL_KM;
+                int[] due = fleet.odometer().serviceDue(interval);
+                line.append("OK ").append(due.length);
+                for (int id : due) line.append(' ').append(id);
+                break;
+            }
+            case "request": {
+                expect(args, 4, "request <type|any> <seats> <start> <end>");
+                String type = args[0].equalsIgnoreCase("any") ? null : args[0];
+                pending.add(new BatchAssigner.Request(type, Integer.parseInt(args[1]),
+                        BookingEngine.parseDay(args[2]), BookingEngine.parseDay(args[3])));
+                line.append("OK queued ").append(pending.size());
+                break;
+            }
+            case "assign":
+                expect(args, 0, "assign");
+                assign();
+                break;
+            case "list": {
+                if (args.length < 2 || args.length > 3) throw new IllegalArgumentException("usage: list <offset> <limit> [order]");
+                FleetLister.Order order = args.length == 3 ? FleetLister.Order.valueOf(args[2].toUpperCase()) : FleetLister.Order.ID;
+                line.append("OK ");
+                lister.renderPage(line, Integer.parseInt(args[0]), Integer.parseInt(args[1]), order, FleetLister.Format.JSON);
+                break;
+            }
+            case "import": {
+                expect(args, 1, "import <csvFile>");
+                FleetCsv.ImportReport report = FleetCsv.importCsv(Paths.get(args[0]), fleet);
+                line.append("OK ").append(report.imported).append(' ').append(report.rejected);
+                break;
+            }
+            case "export":
+                expect(args, 1, "export <csvFile>");
+                line.append("OK ").append(FleetCsv.exportCsv(Paths.get(args[0]), fleet));
+                break;
+            default:
+                error("unknown command: " + name);
+        }
+    }
+
+    private void add(String csv) {
+        int n = FleetCsv.split(csv, fields);
+        if (n != 6) throw new IllegalArgumentException("add needs model,make,mileage,rate,type,seats");
+        Cars car = new Cars(fields[0], fields[1], Integer.parseInt(fields[2]), fields[3], fields[4], fields[5]);
+        line.append("OK ").append(fleet.add(car));
+    }
+
+    private void view(int id) {
+        line.append("OK ");
+        FleetCsv.appendField(line, fleet.getModel(id)).append(',');
+        FleetCsv.appendField(line, fleet.getMake(id)).append(',');
+        line.append(fleet.getMileage(id)).append(',').append(Money.format(fleet.getRateCents(id))).append(',');
+        FleetCsv.appendField(line, fleet.getType(id)).append(',');
+        FleetCsv.appendField(line, fleet.getSeatingCapacity(id));
+    }
+
+    private void book(int vehicleId, int startDay, int endDay) {
+        long reference = bookings.book(vehicleId, startDay, endDay);
+        if (reference < 0) {
+            line.append("CONFLICT");
+            return;
+        }
+        line.append("OK ").append(BookingEngine.formatReference(reference)).append(' ')
+                .append(Money.format(quotes.quote(vehicleId, startDay, endDay)));
+    }
+
+    private void assign() {
+        long[] references = assigner.assign(pending);
+        pending.clear();
+        int assigned = 0;
+        for (long reference : references) if (reference >= 0) assigned++;
+        line.append("OK ").append(assigned).append(' ').append(references.length - assigned);
+        for (long reference : references) {
+            line.append(' ').append(reference < 0 ? "-" : BookingEngine.formatReference(reference));
+        }
+    }
+
+    private void query(int startDay, int endDay) {
+        if (endDay <= startDay) throw new IllegalArgumentException("End date must be after start date");
+        BitSet free = bookings.freeVehicles(startDay, endDay);
+        line.append("OK ").append(free.cardinality());
+        for (int id = free.nextSetBit(0); id >= 0; id = free.nextSetBit(id + 1)) line.append(' ').append(id);
+    }
+
+    private void search(String[] args) {
+        FleetSearch.Query q = new FleetSearch.Query();
+        String from = null;
+        String to = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("search arguments are key=value");
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            int dash = value.indexOf('-', 1);
+            String low = dash < 0 ? value : value.substring(0, dash);
+            String high = dash < 0 ? value : value.substring(dash + 1);
+            switch (key.toLowerCase()) {
+                case "make": q.make(value); break;
+                case "type": q.type(value); break;
+                case "seats": q.seats(Integer.parseInt(low), Integer.parseInt(high)); break;
+                case "rate": q.rate(Money.parseCents(low), Money.parseCents(high)); break;
+                case "from": from = value; break;
+                case "to": to = value; break;
+                case "limit": q.limit(Integer.parseInt(value)); break;
+                case "sort":
+                    if (value.equalsIgnoreCase("price")) q.cheapestFirst();
+                    else if (!value.equalsIgnoreCase("id")) throw new IllegalArgumentException("sort is price or id");
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown search key: " + key);
+            }
+        }
+        if ((from == null) != (to == null)) throw new IllegalArgumentException("search needs both from and to");
+        if (from != null) q.availableBetween(BookingEngine.parseDay(from), BookingEngine.parseDay(to));
+
+        // Dated searches are the repeated "what is free then" questions, so they go through the cache
+        int[] ids = from != null ? availability.search(q).ids : search.search(q);
+        line.append("OK ").append(ids.length);
+        for (int id : ids) line.append(' ').append(id);
+    }
+
+    // Replace anything already written for this command with the error
+    private void error(String message) {
+        failed = true;
+        line.setLength(prefixLength);
+        line.append("ERROR ").append(message);
+    }
+
+    private static void expect(String[] args, int count, String usage) {
+        if (args.length != count) throw new IllegalArgumentException("usage: " + usage);
+    }
+}
@@ -0,0 +1,324 @@
+package carrental;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BookingEngine: stores bookings and answers availability questions.
+ *
+ * Two indexes are kept in step on every booking and cancellation:
+ * - one IntervalSchedule per vehicle, so "is vehicle X free from D1 to D2" is a
+ *   binary search over that vehicle's bookings only;
+ * - a global index of all bookings ordered by start day. A booking can only overlap
+ *   [D1, D2) if it starts in [D1 - longestBooking + 1, D2), so "which vehicles are
+ *   free from D1 to D2" walks just that slice of the index instead of every booking.
+ *
+ * Days are epoch days (LocalDate.toEpochDay) and ranges are half-open [start, end):
+ * the end date is the return day, on which the car can be booked again. Bookings must
+ * lie within [MIN_DAY, MAX_DAY] (1970-01-01 to 2200-01-01), which bounds anything kept
+ * per day (see RunningAggregates).
+ *
+ * A booking is identified by a long reference: the vehicle id in the high 32 bits
+ * and a booking sequence number in the low 32 bits.
+ *
+ * Thread safety: book() and cancel() lock only the stripe that owns the vehicle, so
+ * writers on different vehicles run in parallel and two writers on the same vehicle
+ * can never both win the same dates. Schedules are immutable and published through
+ * an AtomicReferenceArray, so isFree() and freeVehicles() never take a lock.
+ */
+public class BookingEngine {
+    // Schedules live in fixed-size chunks so the table can grow without copying
+    // (and without racing readers against a resize)
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    private static final int STRIPES = 256; // power of two
+
+    public static final int MIN_DAY = 0;                                          // 1970-01-01
+    public static final int MAX_DAY = (int) LocalDate.of(2200, 1, 1).toEpochDay(); // 2200-01-01
+
+    private final FleetStore fleet;
+
+    // schedules[vehicleId >> CHUNK_BITS][vehicleId & (CHUNK_SIZE - 1)]; null means no bookings
+    private final AtomicReferenceArray<AtomicReferenceArray<IntervalSchedule>> schedules =
+            new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    // Writers lock stripes[vehicleId & (STRIPES - 1)]
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // (startDay << 32 | vehicleId) for every live booking
+    private final ConcurrentSkipListSet<Long> byStart = new ConcurrentSkipListSet<>();
+
+    // Longest booking ever made, in days; bounds how far back an overlap can start
+    private final AtomicInteger longestBooking = new AtomicInteger();
+
+    private final AtomicInteger nextSeq = new AtomicInteger(1);
+    private final AtomicInteger bookingCount = new AtomicInteger();
+
+    private final CopyOnWriteArrayList<RentalListener> listeners = new CopyOnWriteArrayList<>();
+
+    public BookingEngine(FleetStore fleet) {
+        this.fleet = fleet;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    public void addListener(RentalListener listener) {
+        listeners.add(listener);
+    }
+
+    // Book vehicleId for [startDay, endDay). Returns the booking reference,
+    // or -1 if the vehicle is already booked for part of that range.
+    // Throws IllegalStateException if the vehicle is in MAINTENANCE.
+    public long book(int vehicleId, int startDay, int endDay) {
+        if (!fleet.contains(vehicleId)) throw new IllegalArgumentException("No vehicle with id " + vehicleId);
+        if (fleet.getState(vehicleId) == VehicleState.MAINTENANCE) {
+            throw new IllegalStateException("Vehicle " + vehicleId + " is in MAINTENANCE");
+        }
+        if (endDay <= startDay) throw new IllegalArgumentException("End date must be after start date");
+        if (startDay < MIN_DAY || endDay > MAX_DAY) {
+            throw new IllegalArgumentException("Bookings must be between " + formatDay(MIN_DAY)
+                    + " and " + formatDay(MAX_DAY));
+        }
+
+        long started = System.nanoTime();
+        long reference = tryBook(vehicleId, startDay, endDay);
+        Metrics.BOOK.record(started, reference >= 0);
+        return reference;
+    }
+
+    private long tryBook(int vehicleId, int startDay, int endDay) {
+
+        AtomicReferenceArray<IntervalSchedule> chunk = chunkFor(vehicleId);
+        int slot = vehicleId & (CHUNK_SIZE - 1);
+        ReentrantLock lock = stripes[vehicleId & (STRIPES - 1)];
+        lock.lock();
+        try {
+            IntervalSchedule current = chunk.get(slot);
+            if (current == null) current = IntervalSchedule.EMPTY;
+            if (!current.isFree(startDay, endDay)) return -1;
+
+            int seq = nextSeq.getAndIncrement();
+            // Widen the search window before the booking becomes visible
+            longestBooking.accumulateAndGet(endDay - startDay, Math::max);
+            chunk.set(slot, current.with(startDay, endDay, seq));
+            byStart.add(indexKey(startDay, vehicleId));
+            bookingCount.incrementAndGet();
+            long reference = reference(vehicleId, seq);
+            for (RentalListener l : listeners) l.booked(reference, startDay, endDay);
+            return reference;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Re-create a booking with a known reference (recovery from a snapshot or log).
+    // Listeners are not notified. Returns false if that booking already exists;
+    // throws IllegalStateException if it collides with a different booking.
+    public boolean restore(long reference, int startDay, int endDay) {
+        int vehicleId = vehicleOf(reference);
+        int seq = seqOf(reference);
+        if (!fleet.contains(vehicleId)) throw new IllegalStateException("No vehicle with id " + vehicleId);
+
+        AtomicReferenceArray<IntervalSchedule> chunk = chunkFor(vehicleId);
+        int slot = vehicleId & (CHUNK_SIZE - 1);
+        ReentrantLock lock = stripes[vehicleId & (STRIPES - 1)];
+        lock.lock();
+        try {
+            IntervalSchedule current = chunk.get(slot);
+            if (current == null) current = IntervalSchedule.EMPTY;
+            if (current.indexOf(seq) >= 0) return false;
+
+            IntervalSchedule updated = current.with(startDay, endDay, seq);
+            if (updated == null) {
+                throw new IllegalStateException("Booking " + formatReference(reference) + " overlaps another booking");
+            }
+            nextSeq.accumulateAndGet(seq + 1, Math::max);
+            longestBooking.accumulateAndGet(endDay - startDay, Math::max);
+            chunk.set(slot, updated);
+            byStart.add(indexKey(startDay, vehicleId));
+            bookingCount.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sequence number the next booking will get
+    public int nextSeq() {
+        return nextSeq.get();
+    }
+
+    // Make sure future bookings get sequence numbers of at least seq (recovery)
+    public void restoreNextSeq(int seq) {
+        nextSeq.accumulateAndGet(seq, Math::max);
+    }
+
+    // Book using ISO dates (yyyy-MM-dd)
+    public long book(int vehicleId, String startDate, String endDate) {
+        return book(vehicleId, parseDay(startDate), parseDay(endDate));
+    }
+
+    // Cancel a booking. Returns false if it does not exist (or was already cancelled).
+    public boolean cancel(long reference) {
+        long started = System.nanoTime();
+        boolean cancelled = tryCancel(reference, true);
+        Metrics.CANCEL.record(started, cancelled);
+        return cancelled;
+    }
+
+    // Re-apply a logged cancellation (recovery). Listeners are not notified.
+    public boolean restoreCancel(long reference) {
+        return tryCancel(reference, false);
+    }
+
+    private boolean tryCancel(long reference, boolean notify) {
+        int vehicleId = vehicleOf(reference);
+        AtomicReferenceArray<IntervalSchedule> chunk = existingChunk(vehicleId);
+        if (chunk == null) return false;
+
+        int slot = vehicleId & (CHUNK_SIZE - 1);
+        ReentrantLock lock = stripes[vehicleId & (STRIPES - 1)];
+        lock.lock();
+        try {
+            IntervalSchedule current = chunk.get(slot);
+            int index = current == null ? -1 : current.indexOf(seqOf(reference));
+            if (index < 0) return false;
+
+            int startDay = current.startAt(index);
+            int endDay = current.endAt(index);
+            byStart.remove(indexKey(startDay, vehicleId));
+            chunk.set(slot, current.without(index));
+            bookingCount.decrementAndGet();
+            if (notify) {
+                for (RentalListener l : listeners) l.cancelled(reference, startDay, endDay);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Is vehicleId free for the whole of [fromDay, toDay)? Never blocks. A car in
+    // MAINTENANCE is never free, since book() refuses it.
+    // Throws IllegalArgumentException if there is no such vehicle.
+    public boolean isFree(int vehicleId, int fromDay, int toDay) {
+        if (!fleet.contains(vehicleId)) throw new IllegalArgumentException("No vehicle with id " + vehicleId);
+        if (fleet.lifecycle().inMaintenance(vehicleId)) return false;
+        IntervalSchedule schedule = schedule(vehicleId);
+        return schedule == null || schedule.isFree(fromDay, toDay);
+    }
+
+    // Vehicles (by id) that are free for the whole of [fromDay, toDay), excluding cars in
+    // MAINTENANCE. Never blocks.
+    public BitSet freeVehicles(int fromDay, int toDay) {
+        int fleetSize = fleet.size();
+        BitSet free = new BitSet(fleetSize + 1);
+        free.set(1, fleetSize + 1);
+        VehicleLifecycle lifecycle = fleet.lifecycle();
+        if (lifecycle.maintenanceCount() > 0) {
+            for (int id = 1; id <= fleetSize; id++) {
+                if (lifecycle.inMaintenance(id)) free.clear(id);
+            }
+        }
+        if (byStart.isEmpty()) return free;
+
+        // Only bookings starting in [fromDay - longestBooking + 1, toDay) can overlap
+        long lo = indexKey(fromDay - longestBooking.get() + 1, 0);
+        long hi = indexKey(toDay, 0);
+        for (long key : byStart.subSet(lo, true, hi, false)) {
+            int vehicleId = (int) key;
+            if (free.get(vehicleId) && !isFree(vehicleId, fromDay, toDay)) {
+                free.clear(vehicleId);
+            }
+        }
+        return free;
+    }
+
+    // Build a booking object for display, or null if the reference is not live
+    public booking get(long reference) {
+        int vehicleId = vehicleOf(reference);
+        IntervalSchedule schedule = schedule(vehicleId);
+        int index = schedule == null ? -1 : schedule.indexOf(seqOf(reference));
+        if (index < 0) return null;
+
+        return new booking(fleet.getModel(vehicleId), fleet.getMake(vehicleId), fleet.getMileage(vehicleId),
+                fleet.getRateCents(vehicleId), schedule.startAt(index), schedule.endAt(index));
+    }
+
+    // Number of live bookings
+    public int size() {
+        return bookingCount.get();
+    }
+
+    // Current schedule of vehicleId, or null if it has never been booked (or does not exist)
+    public IntervalSchedule schedule(int vehicleId) {
+        AtomicReferenceArray<IntervalSchedule> chunk = existingChunk(vehicleId);
+        return chunk == null ? null : chunk.get(vehicleId & (CHUNK_SIZE - 1));
+    }
+
+    private AtomicReferenceArray<IntervalSchedule> chunkFor(int vehicleId) {
+        int c = vehicleId >>> CHUNK_BITS;
+        if (c >= MAX_CHUNKS) throw new IllegalStateException("Bookings are limited to vehicle ids below " + MAX_CHUNKS * CHUNK_SIZE);
+        AtomicReferenceArray<IntervalSchedule> chunk = schedules.get(c);
+        if (chunk == null) {
+            schedules.compareAndSet(c, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = schedules.get(c);
+        }
+        return chunk;
+    }
+
+    // Chunk holding vehicleId's schedule, or null if it has none yet or the id is not in the fleet
+    private AtomicReferenceArray<IntervalSchedule> existingChunk(int vehicleId) {
+        if (!fleet.contains(vehicleId) || vehicleId >>> CHUNK_BITS >= MAX_CHUNKS) return null;
+        return schedules.get(vehicleId >>> CHUNK_BITS);
+    }
+
+    private static long indexKey(int startDay, int vehicleId) {
+        return ((long) startDay << 32) | vehicleId;
+    }
+
+    public static long reference(int vehicleId, int seq) {
+        return ((long) vehicleId << 32) | (seq & 0xFFFFFFFFL);
+    }
+
+    public static int vehicleOf(long reference) {
+        return (int) (reference >>> 32);
+    }
+
+    public static int seqOf(long reference) {
+        return (int) reference;
+    }
+
+    // Booking reference as shown to users: "vehicleId-seq"
+    public static String formatReference(long reference) {
+        return vehicleOf(reference) + "-" + seqOf(reference);
+    }
+
+    // Parse a "vehicleId-seq" reference. Throws NumberFormatException on bad input.
+    public static long parseReference(String text) {
+        int dash = text.indexOf('-');
+        if (dash < 0) throw new NumberFormatException("Invalid booking reference: " + text);
+        return reference(Integer.parseInt(text.substring(0, dash).trim()), Integer.parseInt(text.substring(dash + 1).trim()));
+    }
+
+    // ISO date (yyyy-MM-dd) to epoch day. Throws DateTimeParseException on bad input and
+    // IllegalArgumentException for a date outside [MIN_DAY, MAX_DAY].
+    public static int parseDay(String date) {
+        long day = LocalDate.parse(date.trim()).toEpochDay();
+        if (day < MIN_DAY || day > MAX_DAY) {
+            throw new IllegalArgumentException("Date out of range: " + date.trim() + " (must be between "
+                    + formatDay(MIN_DAY) + " and " + formatDay(MAX_DAY) + ")");
+        }
+        return (int) day;
+    }
+
+    public static String formatDay(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+}
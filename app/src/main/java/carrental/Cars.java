@@ -0,0 +1,65 @@
+package carrental;
+
+public class Cars extends Vehicle {
+    public String type;
+    public String seatingCapacity;
+    
+public Cars(String Model, String Make, int Millege, String ratePerDay, String type, String seatingCapacity){
+    super(Model, Make, Millege, ratePerDay);
+    this.type = type;
+    this.seatingCapacity = seatingCapacity;
+}
+
+public Cars(String Model, String Make, int Millege, long rateCents, String type, String seatingCapacity){
+    super(Model, Make, Millege, rateCents);
+    this.type = type;
+    this.seatingCapacity = seatingCapacity;
+}
+
+
+
+    public String getType() {
+        return type;
+    }
+
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+
+    public String getSeatingCapacity() {
+        return seatingCapacity;
+    }
+
+
+    public void setSeatingCapacity(String seatingCapacity) {
+        this.seatingCapacity = seatingCapacity;
+    }
+
+
+    // Seating capacity as a number: the leading digits of seatingCapacity ("5", "7 seats"), or 0
+    public int getSeatCount() {
+        int seats = 0;
+        String s = seatingCapacity == null ? "" : seatingCapacity.trim();
+        for (int i = 0; i < s.length() && i < 4; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') break;
+            seats = seats * 10 + (c - '0');
+        }
+        return seats;
+    }
+
+    void displayCarDetails(){
+        StringBuilder sb = new StringBuilder(128);
+        appendDetails(sb);
+        sb.append("Type: ").append(type).append('\n');
+        sb.append("Seating Capacity: ").append(seatingCapacity).append('\n');
+        System.out.print(sb);
+    }
+
+   
+
+    
+    
+}
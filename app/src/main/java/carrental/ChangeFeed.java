@@ -0,0 +1,368 @@
+package carrental;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ChangeFeed: in-process stream of fleet and booking changes for any number of
+ * subscribers (billing, notifications, analytics), on a preallocated ring buffer.
+ *
+ * As a RentalListener the feed turns every change into an event in a power-of-two
+ * ring of primitive columns, so publishing allocates nothing. Publishing never waits
+ * for subscribers: a producer claims the next sequence number with one atomic add,
+ * writes the slot and marks it published. It only ever waits for another producer
+ * that is still writing the same slot one full lap earlier.
+ *
+ * Each subscriber runs on its own thread with its own cursor and wait strategy, and
+ * takes every event published since it last looked as one batch (endOfBatch marks
+ * the last, e.g. to flush). A subscriber that falls a whole ring behind has been
+ * overwritten: it skips to the oldest event still in the ring and counts the ones it
+ * lost, instead of holding up bookings.
+ *
+ * A slot being rewritten is marked unpublished first, and a subscriber checks the
+ * slot's sequence again after copying the event out, so it never delivers an event
+ * torn by an overwrite.
+ */
+public class ChangeFeed implements RentalListener, ChangeFeedMBean {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 1024;
+
+    // Event types
+    public static final byte CAR_ADDED = 1;
+    public static final byte MILEAGE = 2;
+    public static final byte ODOMETER = 3;
+    public static final byte BOOKED = 4;
+    public static final byte CANCELLED = 5;
+    public static final byte STATE = 6;
+
+    /**
+     * Event: one change, copied out of the ring. The same instance is reused for every
+     * event a subscriber receives, so copy what has to outlive the callback.
+     *
+     * Fields by type: CAR_ADDED vehicleId; MILEAGE vehicleId, mileage;
+     * ODOMETER vehicleId, day, mileage, kind; BOOKED/CANCELLED reference, vehicleId,
+     * startDay, endDay; STATE vehicleId, kind (the VehicleState ordinal).
+     */
+    public static final class Event {
+        public byte type;
+        public int vehicleId;
+        public long reference;
+        public int startDay;   // or the reading's day
+        public int endDay;
+        public int mileage;
+        public int kind;
+
+        @Override
+        public String toString() {
+            switch (type) {
+                case CAR_ADDED: return "carAdded " + vehicleId;
+                case MILEAGE: return "mileage " + vehicleId + " " + mileage;
+                case ODOMETER: return "odometer " + vehicleId + " " + BookingEngine.formatDay(startDay) + " " + mileage;
+                case BOOKED: return "booked " + BookingEngine.formatReference(reference) + " "
+                        + BookingEngine.formatDay(startDay) + " " + BookingEngine.formatDay(endDay);
+                case CANCELLED: return "cancelled " + BookingEngine.formatReference(reference);
+                case STATE: return "state " + vehicleId + " " + VehicleState.of(kind);
+                default: return "event " + type;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void onEvent(Event event, long sequence, boolean endOfBatch);
+    }
+
+    /**
+     * WaitStrategy: what a subscriber does while no event is ready. BUSY_SPIN reacts
+     * fastest and burns a core; YIELDING spins then yields; SLEEPING backs off to
+     * short sleeps; PARKING sleeps until a producer wakes it (lowest CPU use, adds
+     * an unpark to publishing while the subscriber is idle).
+     */
+    public enum WaitStrategy {
+        BUSY_SPIN, YIELDING, SLEEPING, PARKING
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();  // next sequence to claim
+    private final AtomicLongArray published;           // sequence held by each slot, -1 while being written
+    private final byte[] types;
+    private final int[] vehicleIds;
+    private final long[] references;
+    private final int[] startDays;
+    private final int[] endDays;
+    private final int[] mileages;
+    private final int[] kinds;
+
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+
+    public ChangeFeed(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        // As if a lap -1 had been published, so the first lap's producers find their slots free
+        for (int i = 0; i < capacity; i++) published.set(i, i - capacity);
+        types = new byte[capacity];
+        vehicleIds = new int[capacity];
+        references = new long[capacity];
+        startDays = new int[capacity];
+        endDays = new int[capacity];
+        mileages = new int[capacity];
+        kinds = new int[capacity];
+    }
+
+    // Publish the changes of this fleet and its bookings
+    public ChangeFeed(FleetStore fleet, BookingEngine bookings, int capacity) {
+        this(capacity);
+        fleet.addListener(this);
+        bookings.addListener(this);
+    }
+
+    @Override
+    public void carAdded(int vehicleId, Cars car) {
+        publish(CAR_ADDED, vehicleId, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void mileageChanged(int vehicleId, int mileage) {
+        publish(MILEAGE, vehicleId, 0, 0, 0, mileage, 0);
+    }
+
+    @Override
+    public void odometerRead(int vehicleId, int day, int mileage, int kind) {
+        publish(ODOMETER, vehicleId, 0, day, 0, mileage, kind);
+    }
+
+    @Override
+    public void stateChanged(int vehicleId, VehicleState state) {
+        publish(STATE, vehicleId, 0, 0, 0, 0, state.ordinal());
+    }
+
+    @Override
+    public void booked(long reference, int startDay, int endDay) {
+        publish(BOOKED, BookingEngine.vehicleOf(reference), reference, startDay, endDay, 0, 0);
+    }
+
+    @Override
+    public void cancelled(long reference, int startDay, int endDay) {
+        publish(CANCELLED, BookingEngine.vehicleOf(reference), reference, startDay, endDay, 0, 0);
+    }
+
+    // Append one event; returns its sequence number
+    public long publish(byte type, int vehicleId, long reference, int startDay, int endDay, int mileage, int kind) {
+        long seq = head.getAndIncrement();
+        int slot = (int) seq & mask;
+        // Only a producer one lap behind can still be writing this slot
+        while (published.get(slot) != seq - capacity) Thread.onSpinWait();
+        published.set(slot, -1);
+        VarHandle.storeStoreFence();
+        types[slot] = type;
+        vehicleIds[slot] = vehicleId;
+        references[slot] = reference;
+        startDays[slot] = startDay;
+        endDays[slot] = endDay;
+        mileages[slot] = mileage;
+        kinds[slot] = kind;
+        published.set(slot, seq);
+        if (parkedCount.get() > 0) {
+            for (Subscription s : subscriptions) {
+                if (s.parked) LockSupport.unpark(s.thread);
+            }
+        }
+        return seq;
+    }
+
+    // Start delivering events published from now on to handler, on a new daemon thread
+    public Subscription subscribe(String name, Handler handler, WaitStrategy wait) {
+        Subscription s = new Subscription(name, handler, wait, head.get());
+        subscriptions.add(s);
+        s.thread.start();
+        return s;
+    }
+
+    /**
+     * Subscription: one subscriber's cursor and thread. close() stops it after the
+     * batch in progress.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String name;
+        private final Handler handler;
+        private final WaitStrategy wait;
+        private final Thread thread;
+        private volatile long cursor;     // next sequence to deliver
+        private volatile boolean running = true;
+        private volatile boolean parked;
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Subscription(String name, Handler handler, WaitStrategy wait, long start) {
+            this.name = name;
+            this.handler = handler;
+            this.wait = wait;
+            this.cursor = start;
+            this.thread = new Thread(this::run, "feed-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long cursor() {
+            return cursor;
+        }
+
+        // Events published but not yet delivered
+        public long lag() {
+            return Math.max(0, head.get() - cursor);
+        }
+
+        // Events overwritten before this subscriber got to them
+        public long dropped() {
+            return dropped.get();
+        }
+
+        // Events whose handler threw
+        public long errors() {
+            return errors.get();
+        }
+
+        private void run() {
+            Event event = new Event();
+            int idle = 0;
+            while (running) {
+                long seq = cursor;
+                long found = published.get((int) seq & mask);
+                if (found > seq) {
+                    skipOverwritten(seq);
+                    continue;
+                }
+                if (found != seq) {
+                    idle = idle(idle, seq);
+                    continue;
+                }
+                idle = 0;
+
+                // Everything published contiguously after seq joins the batch
+                long end = seq;
+                while (end - seq + 1 < MAX_BATCH && published.get((int) (end + 1) & mask) == end + 1) end++;
+
+                for (long s = seq; s <= end; s++) {
+                    int slot = (int) s & mask;
+                    event.type = types[slot];
+                    event.vehicleId = vehicleIds[slot];
+                    event.reference = references[slot];
+                    event.startDay = startDays[slot];
+                    event.endDay = endDays[slot];
+                    event.mileage = mileages[slot];
+                    event.kind = kinds[slot];
+                    VarHandle.loadLoadFence();
+                    if (published.get(slot) != s) {
+                        // Overwritten while copying: the rest of the batch is gone too
+                        end = s - 1;
+                        break;
+                    }
+                    try {
+                        handler.onEvent(event, s, s == end);
+                    } catch (RuntimeException e) {
+                        if (errors.getAndIncrement() == 0) {
+                            System.err.println("Feed subscriber " + name + " failed: " + e);
+                        }
+                    }
+                }
+                cursor = end + 1;
+            }
+        }
+
+        private void skipOverwritten(long seq) {
+            long oldest = Math.max(seq + 1, head.get() - capacity);
+            dropped.addAndGet(oldest - seq);
+            cursor = oldest;
+        }
+
+        private int idle(int idle, long seq) {
+            switch (wait) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELDING:
+                    if (idle < 100) Thread.onSpinWait();
+                    else Thread.yield();
+                    break;
+                case SLEEPING:
+                    if (idle < 100) Thread.onSpinWait();
+                    else if (idle < 200) Thread.yield();
+                    else LockSupport.parkNanos(100_000);
+                    break;
+                case PARKING:
+                    if (idle < 100) {
+                        Thread.onSpinWait();
+                        break;
+                    }
+                    // Announce, then look once more: a producer publishing after the
+                    // announcement sees it and unparks (both sides are volatile)
+                    parked = true;
+                    parkedCount.incrementAndGet();
+                    if (published.get((int) seq & mask) < seq && running) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                    parkedCount.decrementAndGet();
+                    parked = false;
+                    break;
+            }
+            return idle + 1;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            subscriptions.remove(this);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getPublished() {
+        return head.get();
+    }
+
+    @Override
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public long getMaxLag() {
+        long max = 0;
+        for (Subscription s : subscriptions) max = Math.max(max, s.lag());
+        return max;
+    }
+
+    @Override
+    public long getDropped() {
+        long total = 0;
+        for (Subscription s : subscriptions) total += s.dropped();
+        return total;
+    }
+}
@@ -0,0 +1,18 @@
+package carrental;
+
+/**
+ * ChangeFeedMBean: JMX view of the ChangeFeed.
+ *
+ * Registered as carrental:type=ChangeFeed,name=changes.
+ */
+public interface ChangeFeedMBean {
+    int getCapacity();
+
+    long getPublished();
+
+    int getSubscribers();
+
+    long getMaxLag();
+
+    long getDropped();
+}
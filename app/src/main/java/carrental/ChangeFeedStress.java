@@ -0,0 +1,138 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChangeFeedStress: throughput and correctness check for ChangeFeed.
+ *
+ * Usage: java ChangeFeedStress [producers] [eventsPerProducer] [capacity]
+ *        (default 4 5000000 65536)
+ *
+ * Producers publish numbered events concurrently; one subscriber per wait strategy
+ * must receive every producer's events in order, and any events it skipped must be
+ * exactly the ones it reports as dropped (with fewer cores than threads even a fast
+ * subscriber is lapped while descheduled). One more subscriber sleeps on every
+ * batch: it must fall behind and lose events without holding the producers up. Then the same feed is attached to a BookingEngine to
+ * measure bookings per second with subscribers running.
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class ChangeFeedStress {
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : ChangeFeed.DEFAULT_CAPACITY;
+
+        ChangeFeed feed = new ChangeFeed(capacity);
+        List<Checker> checkers = new ArrayList<>();
+        List<ChangeFeed.Subscription> subscriptions = new ArrayList<>();
+        for (ChangeFeed.WaitStrategy wait : new ChangeFeed.WaitStrategy[]{
+                ChangeFeed.WaitStrategy.YIELDING, ChangeFeed.WaitStrategy.SLEEPING, ChangeFeed.WaitStrategy.PARKING}) {
+            Checker checker = new Checker(producers);
+            checkers.add(checker);
+            subscriptions.add(feed.subscribe(wait.name().toLowerCase(), checker, wait));
+        }
+        AtomicLong slowSeen = new AtomicLong();
+        ChangeFeed.Subscription slow = feed.subscribe("slow", (e, seq, endOfBatch) -> {
+            slowSeen.incrementAndGet();
+            if (endOfBatch) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, ChangeFeed.WaitStrategy.PARKING);
+
+        long started = System.nanoTime();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < events; i++) feed.publish(ChangeFeed.BOOKED, producer, i, 0, 0, 0, 0);
+            });
+            threads[p].start();
+        }
+        for (Thread t : threads) t.join();
+        long publishNanos = System.nanoTime() - started;
+        long total = (long) producers * events;
+        for (ChangeFeed.Subscription s : subscriptions) {
+            while (s.cursor() < total) Thread.sleep(1);
+        }
+        long deliverNanos = System.nanoTime() - started;
+
+        boolean ok = true;
+        System.out.printf("Published %d events from %d producers in %d ms (%.1f M events/s), all delivered in %d ms%n",
+                total, producers, publishNanos / 1_000_000, total * 1e3 / publishNanos, deliverNanos / 1_000_000);
+        for (int i = 0; i < checkers.size(); i++) {
+            Checker c = checkers.get(i);
+            c.finish(events);
+            ChangeFeed.Subscription s = subscriptions.get(i);
+            boolean good = c.errors == 0 && c.skipped == s.dropped() && c.received + s.dropped() == total;
+            ok &= good;
+            System.out.printf("  %-9s received %d, dropped %d, skipped %d, out of order %d, batches %d (avg %.0f) %s%n",
+                    s.name(), c.received, s.dropped(), c.skipped, c.errors, c.batches, (double) c.received / Math.max(1, c.batches),
+                    good ? "OK" : "FAILED");
+        }
+        System.out.printf("  %-9s received %d, dropped %d (slow subscriber; drops expected)%n", slow.name(),
+                slowSeen.get(), slow.dropped());
+        if (slow.dropped() == 0) ok = false;
+        slow.close();
+
+        // End to end: bookings published through the listener path
+        FleetStore fleet = new FleetStore();
+        BookingEngine bookings = new BookingEngine(fleet);
+        for (int i = 0; i < 10_000; i++) fleet.add(new Cars("M", "Make", 0, 5_000, "Sedan", "5"));
+        bookings.addListener(feed);
+        long before = feed.getPublished();
+        started = System.nanoTime();
+        int booked = 0;
+        for (int day = 0; day < 200; day++) {
+            for (int id = 1; id <= 10_000; id++) {
+                if (bookings.book(id, 20_000 + day, 20_001 + day) >= 0) booked++;
+            }
+        }
+        long bookNanos = System.nanoTime() - started;
+        for (ChangeFeed.Subscription s : subscriptions) {
+            while (s.cursor() < feed.getPublished()) Thread.sleep(1);
+        }
+        System.out.printf("Booked %d rentals with %d subscribers attached: %.0f bookings/s, %d events%n", booked,
+                subscriptions.size(), booked * 1e9 / bookNanos, feed.getPublished() - before);
+        for (ChangeFeed.Subscription s : subscriptions) s.close();
+
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    // Checks that each producer's events (numbered in reference) arrive in order, and
+    // counts the ones missing in between
+    private static final class Checker implements ChangeFeed.Handler {
+        private final long[] next;
+        long received;
+        long skipped;
+        long errors;
+        long batches;
+
+        Checker(int producers) {
+            next = new long[producers];
+        }
+
+        @Override
+        public void onEvent(ChangeFeed.Event e, long sequence, boolean endOfBatch) {
+            if (e.vehicleId < next.length) {
+                if (e.reference < next[e.vehicleId]) errors++;
+                else skipped += e.reference - next[e.vehicleId];
+                next[e.vehicleId] = e.reference + 1;
+            }
+            received++;
+            if (endOfBatch) batches++;
+        }
+
+        // Count events missing after each producer's last delivered one
+        void finish(int events) {
+            for (long n : next) skipped += events - n;
+        }
+    }
+}
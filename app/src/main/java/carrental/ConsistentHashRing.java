@@ -0,0 +1,60 @@
+package carrental;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ConsistentHashRing: assigns keys (branch names) to shards so that adding a shard
+ * moves only the keys the new shard takes over.
+ *
+ * Each shard is placed on a 64-bit ring at VIRTUAL_NODES pseudo-random points (hashes
+ * of "name#i"); a key belongs to the shard owning the first point at or after the
+ * key's hash, wrapping around. A new shard's points each take over one arc, so it
+ * claims about 1/(n+1) of the keys, taken evenly from all existing shards, and no key
+ * moves between two old shards.
+ *
+ * Shards are identified by a small int chosen by the caller. Not thread-safe.
+ */
+public class ConsistentHashRing {
+    // Enough points per shard that the share of keys per shard varies by a few percent
+    private static final int VIRTUAL_NODES = 160;
+
+    private final TreeMap<Long, Integer> points = new TreeMap<>();
+    private int shards;
+
+    public void addShard(int shard, String name) {
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            Long point = hash(name + "#" + i);
+            // On a (practically impossible) collision the earlier shard keeps the point
+            points.putIfAbsent(point, shard);
+        }
+        shards++;
+    }
+
+    public int size() {
+        return shards;
+    }
+
+    // Shard owning key; the ring must not be empty
+    public int shardFor(String key) {
+        if (points.isEmpty()) throw new IllegalStateException("No shards");
+        Map.Entry<Long, Integer> e = points.ceilingEntry(hash(key));
+        return (e != null ? e : points.firstEntry()).getValue();
+    }
+
+    // FNV-1a over the UTF-8 bytes, then a murmur3 finalizer to spread nearby keys
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
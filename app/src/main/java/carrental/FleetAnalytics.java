@@ -0,0 +1,280 @@
+package carrental;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * FleetAnalytics: utilization, revenue and rental-length reports over a date range.
+ *
+ * A report scans every vehicle's schedule once, in parallel: the vehicle ids are split
+ * into ranges on the common fork-join pool, each range fills its own primitive arrays
+ * (nothing shared, nothing locked) and the partial results are added together as the
+ * tasks join. Schedules are immutable, so a scan runs alongside live bookings and sees
+ * each vehicle's bookings as of the moment it reaches that vehicle.
+ *
+ * For a period [fromDay, toDay):
+ * - utilization per make and per type = booked car-days in the period / (cars x days);
+ * - revenue per day: each booking's price is spread over its days (QuoteEngine.dayUnits),
+ *   so a day earns what the cars on rent that day bring in;
+ * - average rental length over the bookings that start in the period.
+ *
+ * For dashboards that poll, RunningAggregates keeps the same figures up to date
+ * incrementally instead of rescanning.
+ */
+public class FleetAnalytics {
+    // Vehicles per fork-join leaf task
+    private static final int SPLIT = 4096;
+
+    // Longest period a report (or a live per-day view) may cover: ten years
+    public static final int MAX_DAYS = 3660;
+
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+    private final QuoteEngine quotes;
+
+    public FleetAnalytics(FleetStore fleet, BookingEngine bookings, QuoteEngine quotes) {
+        this.fleet = fleet;
+        this.bookings = bookings;
+        this.quotes = quotes;
+    }
+
+    public Report report(int fromDay, int toDay) {
+        checkPeriod(fromDay, toDay);
+        int cars = fleet.size();
+        Partial total = ForkJoinPool.commonPool().invoke(new Scan(fromDay, toDay, 1, cars + 1));
+        return new Report(fromDay, toDay, fleet, total);
+    }
+
+    static void checkPeriod(int fromDay, int toDay) {
+        if (toDay <= fromDay) throw new IllegalArgumentException("End date must be after start date");
+        if (toDay - fromDay > MAX_DAYS) throw new IllegalArgumentException("Period is limited to " + MAX_DAYS + " days");
+    }
+
+    // Totals for a range of vehicles; arrays are indexed by dictionary code or day offset
+    private static final class Partial {
+        long[] carsByMake;
+        long[] bookedDaysByMake;
+        long[] carsByType;
+        long[] bookedDaysByType;
+        final long[] revenueUnitsByDay;   // rate x price units, i.e. cents x 10000
+        long bookingsStarted;
+        long daysOfBookingsStarted;
+
+        Partial(int makes, int types, int days) {
+            carsByMake = new long[makes];
+            bookedDaysByMake = new long[makes];
+            carsByType = new long[types];
+            bookedDaysByType = new long[types];
+            revenueUnitsByDay = new long[days];
+        }
+
+        Partial add(Partial o) {
+            carsByMake = sum(carsByMake, o.carsByMake);
+            bookedDaysByMake = sum(bookedDaysByMake, o.bookedDaysByMake);
+            carsByType = sum(carsByType, o.carsByType);
+            bookedDaysByType = sum(bookedDaysByType, o.bookedDaysByType);
+            for (int i = 0; i < revenueUnitsByDay.length; i++) revenueUnitsByDay[i] += o.revenueUnitsByDay[i];
+            bookingsStarted += o.bookingsStarted;
+            daysOfBookingsStarted += o.daysOfBookingsStarted;
+            return this;
+        }
+
+        // Element-wise a + b; the dictionaries may have grown between the two scans
+        private static long[] sum(long[] a, long[] b) {
+            long[] out = a.length >= b.length ? a : b;
+            long[] other = out == a ? b : a;
+            for (int i = 0; i < other.length; i++) out[i] += other[i];
+            return out;
+        }
+    }
+
+    private final class Scan extends RecursiveTask<Partial> {
+        private final int fromDay;
+        private final int toDay;
+        private final int lo;   // first vehicle id
+        private final int hi;   // one past the last
+
+        Scan(int fromDay, int toDay, int lo, int hi) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo > SPLIT) {
+                int mid = (lo + hi) >>> 1;
+                Scan left = new Scan(fromDay, toDay, lo, mid);
+                left.fork();
+                Partial right = new Scan(fromDay, toDay, mid, hi).compute();
+                return right.add(left.join());
+            }
+
+            Partial p = new Partial(fleet.makes().size(), fleet.types().size(), toDay - fromDay);
+            for (int id = lo; id < hi; id++) {
+                int make = fleet.makeCode(id);
+                int type = fleet.typeCode(id);
+                if (make >= p.carsByMake.length || type >= p.carsByType.length) {
+                    // A car added with a new make/type after this task sized its arrays
+                    p.carsByMake = grow(p.carsByMake, make);
+                    p.bookedDaysByMake = grow(p.bookedDaysByMake, make);
+                    p.carsByType = grow(p.carsByType, type);
+                    p.bookedDaysByType = grow(p.bookedDaysByType, type);
+                }
+                p.carsByMake[make]++;
+                p.carsByType[type]++;
+
+                IntervalSchedule schedule = bookings.schedule(id);
+                if (schedule == null) continue;
+                long rate = fleet.getRateCents(id);
+                for (int i = 0; i < schedule.size(); i++) {
+                    int start = schedule.startAt(i);
+                    int end = schedule.endAt(i);
+                    if (start >= toDay) break;          // sorted by start
+                    if (start >= fromDay) {
+                        p.bookingsStarted++;
+                        p.daysOfBookingsStarted += end - start;
+                    }
+                    int from = Math.max(start, fromDay);
+                    int to = Math.min(end, toDay);
+                    if (to <= from) continue;
+                    p.bookedDaysByMake[make] += to - from;
+                    p.bookedDaysByType[type] += to - from;
+                    for (int day = from; day < to; day++) {
+                        p.revenueUnitsByDay[day - fromDay] += rate * quotes.dayUnits(day, end - start);
+                    }
+                }
+            }
+            return p;
+        }
+    }
+
+    private static long[] grow(long[] a, int index) {
+        if (index < a.length) return a;
+        long[] b = new long[index + 1];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    /**
+     * Report: the figures for one period, by make and type name and by day.
+     */
+    public static final class Report {
+        public final int fromDay;
+        public final int toDay;
+        public final String[] makes;
+        public final long[] carsByMake;
+        public final long[] bookedDaysByMake;
+        public final String[] types;
+        public final long[] carsByType;
+        public final long[] bookedDaysByType;
+        public final long[] revenueCentsByDay;
+        public final long bookingsStarted;
+        public final double averageRentalDays;
+
+        private Report(int fromDay, int toDay, FleetStore fleet, Partial p) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.makes = names(fleet.makes(), p.carsByMake.length);
+            this.carsByMake = p.carsByMake;
+            this.bookedDaysByMake = p.bookedDaysByMake;
+            this.types = names(fleet.types(), p.carsByType.length);
+            this.carsByType = p.carsByType;
+            this.bookedDaysByType = p.bookedDaysByType;
+            this.revenueCentsByDay = new long[p.revenueUnitsByDay.length];
+            for (int i = 0; i < revenueCentsByDay.length; i++) {
+                revenueCentsByDay[i] = (p.revenueUnitsByDay[i] + 5_000) / 10_000;
+            }
+            this.bookingsStarted = p.bookingsStarted;
+            this.averageRentalDays = p.bookingsStarted == 0 ? 0 : (double) p.daysOfBookingsStarted / p.bookingsStarted;
+        }
+
+        private static String[] names(StringDictionary dictionary, int count) {
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) names[i] = dictionary.decode(i);
+            return names;
+        }
+
+        public int days() {
+            return toDay - fromDay;
+        }
+
+        // Fraction (0..1) of car-days booked for cars of make index i
+        public double makeUtilization(int i) {
+            return utilization(bookedDaysByMake[i], carsByMake[i]);
+        }
+
+        public double typeUtilization(int i) {
+            return utilization(bookedDaysByType[i], carsByType[i]);
+        }
+
+        private double utilization(long bookedDays, long cars) {
+            return cars == 0 ? 0 : (double) bookedDays / (cars * days());
+        }
+
+        public long totalRevenueCents() {
+            long total = 0;
+            for (long cents : revenueCentsByDay) total += cents;
+            return total;
+        }
+
+        public void appendJson(StringBuilder sb) {
+            sb.append("{\"from\":\"").append(BookingEngine.formatDay(fromDay))
+                    .append("\",\"to\":\"").append(BookingEngine.formatDay(toDay)).append("\",\"utilizationByMake\":{");
+            appendUtilization(sb, makes, carsByMake, bookedDaysByMake);
+            sb.append("},\"utilizationByType\":{");
+            appendUtilization(sb, types, carsByType, bookedDaysByType);
+            sb.append("},\"revenueByDay\":{");
+            for (int i = 0; i < revenueCentsByDay.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append('"').append(BookingEngine.formatDay(fromDay + i)).append("\":")
+                        .append(Money.format(revenueCentsByDay[i]));
+            }
+            sb.append("},\"totalRevenue\":").append(Money.format(totalRevenueCents()))
+                    .append(",\"bookingsStarted\":").append(bookingsStarted)
+                    .append(",\"averageRentalDays\":").append(String.format(Locale.ROOT, "%.2f", averageRentalDays))
+                    .append('}');
+        }
+
+        private void appendUtilization(StringBuilder sb, String[] names, long[] cars, long[] bookedDays) {
+            boolean first = true;
+            for (int i = 0; i < names.length; i++) {
+                if (cars[i] == 0) continue;
+                if (!first) sb.append(',');
+                first = false;
+                FleetLister.appendJsonString(sb, names[i]);
+                sb.append(':').append(String.format(Locale.ROOT, "%.4f", utilization(bookedDays[i], cars[i])));
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(1024);
+            sb.append("Fleet report ").append(BookingEngine.formatDay(fromDay)).append(" to ")
+                    .append(BookingEngine.formatDay(toDay)).append('\n');
+            sb.append("Utilization by make:\n");
+            appendText(sb, makes, carsByMake, bookedDaysByMake);
+            sb.append("Utilization by type:\n");
+            appendText(sb, types, carsByType, bookedDaysByType);
+            sb.append("Revenue by day:\n");
+            for (int i = 0; i < revenueCentsByDay.length; i++) {
+                sb.append(String.format(Locale.ROOT, "  %s %12s%n",
+                        BookingEngine.formatDay(fromDay + i), Money.format(revenueCentsByDay[i])));
+            }
+            sb.append("Total revenue: ").append(Money.format(totalRevenueCents())).append('\n');
+            sb.append(String.format(Locale.ROOT, "Bookings started: %d, average length %.2f days%n",
+                    bookingsStarted, averageRentalDays));
+            return sb.toString();
+        }
+
+        private void appendText(StringBuilder sb, String[] names, long[] cars, long[] bookedDays) {
+            for (int i = 0; i < names.length; i++) {
+                if (cars[i] == 0) continue;
+                sb.append(String.format(Locale.ROOT, "  %-16s %6d cars %6.1f%%%n",
+                        names[i], cars[i], 100 * utilization(bookedDays[i], cars[i])));
+            }
+        }
+    }
+}
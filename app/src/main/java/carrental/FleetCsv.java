@@ -0,0 +1,249 @@
+package carrental;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * FleetCsv: streaming bulk import and export of the fleet as CSV.
+ *
+ * Columns: model,make,mileage,rate,type,seatingCapacity (a header line with these
+ * names is optional on import and always written on export). Fields may be quoted
+ * with "..." and quotes inside are doubled, as in RFC 4180; a quoted field may contain
+ * commas and line breaks, so one record can span up to MAX_RECORD_LINES lines. A quote
+ * still open after that is taken as a stray: its row is rejected and import resumes
+ * with the line after it, so one bad quote costs one row, not the rows that follow.
+ *
+ * Import reads record by record through one large buffered reader and adds cars to
+ * the fleet in batches (one FleetStore lock per batch), so memory stays bounded by
+ * the batch size no matter how big the file is. Bad rows are skipped and reported
+ * with their line number; they never abort the import.
+ */
+public final class FleetCsv {
+    public static final String HEADER = "model,make,mileage,rate,type,seatingCapacity";
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_RECORD_LINES = 8; // an open quote stops swallowing lines here
+
+    private FleetCsv() {}
+
+    // Result of an import: how many rows were added, and which were rejected and why
+    public static final class ImportReport {
+        public int imported;
+        public int rejected;
+        public int firstId = -1;
+        public final List<String> errors = new ArrayList<>(); // first MAX_REPORTED_ERRORS only
+
+        void reject(long line, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add("Line " + line + ": " + reason);
+        }
+
+        @Override
+        public String toString() {
+            return imported + " cars imported, " + rejected + " rows rejected";
+        }
+    }
+
+    public static ImportReport importCsv(Path file, FleetStore fleet) throws IOException {
+        return importCsv(file, fleet, DEFAULT_BATCH_SIZE);
+    }
+
+    public static ImportReport importCsv(Path file, FleetStore fleet, int batchSize) throws IOException {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()), BUFFER_SIZE)) {
+            return importCsv(in, fleet, batchSize);
+        }
+    }
+
+    public static ImportReport importCsv(BufferedReader in, FleetStore fleet, int batchSize) throws IOException {
+        ImportReport report = new ImportReport();
+        Cars[] batch = new Cars[batchSize];
+        String[] fields = new String[6];
+        int pending = 0;
+        Lines lines = new Lines(in);
+        List<String> joined = new ArrayList<>(MAX_RECORD_LINES);
+
+        String line;
+        while ((line = lines.next()) != null) {
+            if (line.isEmpty()) continue;
+            if (lines.number == 1 && line.trim().equalsIgnoreCase(HEADER)) continue;
+
+            // A quote still open at the end of the line continues on the next ones, for a
+            // few lines at most; past that the lines taken are read again as rows of their own
+            long recordLine = lines.number;
+            int n = split(line, fields);
+            if (n < 0) {
+                StringBuilder record = new StringBuilder(line);
+                joined.clear();
+                String next;
+                while (n < 0 && joined.size() < MAX_RECORD_LINES && (next = lines.next()) != null) {
+                    joined.add(next);
+                    n = split(record.append('\n').append(next).toString(), fields);
+                }
+                if (n < 0) lines.pushBack(joined);
+            }
+            if (n != 6) {
+                report.reject(recordLine, "expected 6 fields but found " + (n < 0 ? "an unclosed quote" : n));
+                continue;
+            }
+            if (fields[0].isEmpty() || fields[1].isEmpty()) {
+                report.reject(recordLine, "model and make are required");
+                continue;
+            }
+
+            int mileage;
+            long rate;
+            try {
+                mileage = Integer.parseInt(fields[2]);
+                if (mileage < 0) throw new NumberFormatException();
+            } catch (NumberFormatException e) {
+                report.reject(recordLine, "invalid mileage: " + fields[2]);
+                continue;
+            }
+            try {
+                rate = Money.checkRate(Money.parseCents(fields[3]));
+            } catch (IllegalArgumentException e) {
+                report.reject(recordLine, e.getMessage());
+                continue;
+            }
+
+            batch[pending++] = new Cars(fields[0], fields[1], mileage, rate, fields[4], fields[5]);
+            if (pending == batchSize) {
+                flush(fleet, batch, pending, report);
+                pending = 0;
+            }
+        }
+        flush(fleet, batch, pending, report);
+        return report;
+    }
+
+    // Numbered lines of the input, with lines pushed back to be read again
+    private static final class Lines {
+        private final BufferedReader in;
+        private final ArrayDeque<String> pushedBack = new ArrayDeque<>();
+        long number; // of the line last returned
+
+        Lines(BufferedReader in) {
+            this.in = in;
+        }
+
+        String next() throws IOException {
+            String line = pushedBack.isEmpty() ? in.readLine() : pushedBack.poll();
+            if (line != null) number++;
+            return line;
+        }
+
+        // Return the last lines.size() lines read, to be read again in the same order
+        void pushBack(List<String> lines) {
+            for (int i = lines.size() - 1; i >= 0; i--) pushedBack.push(lines.get(i));
+            number -= lines.size();
+        }
+    }
+
+    private static void flush(FleetStore fleet, Cars[] batch, int count, ImportReport report) {
+        if (count == 0) return;
+        int first = fleet.addBatch(batch, count);
+        if (report.firstId < 0) report.firstId = first;
+        report.imported += count;
+        Arrays.fill(batch, 0, count, null);
+    }
+
+    // Split one CSV record into fields (trimmed). Returns the field count, which may be
+    // larger than fields.length (extra fields are counted, not stored), or -1 if a
+    // quote is left open.
+    static int split(String line, String[] fields) {
+        int count = 0;
+        int i = 0;
+        int len = line.length();
+        StringBuilder quoted = null;
+        while (true) {
+            String value;
+            while (i < len && line.charAt(i) == ' ') i++;
+            if (i < len && line.charAt(i) == '"') {
+                if (quoted == null) quoted = new StringBuilder();
+                quoted.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= len) return -1;
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < len && line.charAt(i) == '"') {
+                            quoted.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                value = quoted.toString();
+                while (i < len && line.charAt(i) != ',') i++;
+            } else {
+                int start = i;
+                while (i < len && line.charAt(i) != ',') i++;
+                value = line.substring(start, i).trim();
+            }
+            if (count < fields.length) fields[count] = value;
+            count++;
+            if (i >= len) return count;
+            i++; // skip the comma
+        }
+    }
+
+    // Write the whole fleet to file. Returns the number of cars written.
+    public static int exportCsv(Path file, FleetStore fleet) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8.newEncoder()), BUFFER_SIZE)) {
+            return exportCsv(out, fleet);
+        }
+    }
+
+    public static int exportCsv(BufferedWriter out, FleetStore fleet) throws IOException {
+        int size = fleet.size();
+        StringBuilder row = new StringBuilder(128);
+        out.write(HEADER);
+        out.write('\n');
+        for (int id = 1; id <= size; id++) {
+            row.setLength(0);
+            appendField(row, fleet.getModel(id)).append(',');
+            appendField(row, fleet.getMake(id)).append(',');
+            row.append(fleet.getMileage(id)).append(',');
+            row.append(Money.format(fleet.getRateCents(id))).append(',');
+            appendField(row, fleet.getType(id)).append(',');
+            appendField(row, fleet.getSeatingCapacity(id)).append('\n');
+            out.append(row);
+        }
+        return size;
+    }
+
+    // Quote a field only if it contains a comma, quote, newline or edge spaces
+    static StringBuilder appendField(StringBuilder row, String value) {
+        boolean needsQuotes = !value.isEmpty() && (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ');
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) return row.append(value);
+
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        return row.append('"');
+    }
+}
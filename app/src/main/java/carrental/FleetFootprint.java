@@ -0,0 +1,61 @@
+package carrental;
+
+/**
+ * FleetFootprint: compares the heap used by the old one-Cars-object-per-vehicle
+ * model with the column-oriented FleetStore.
+ *
+ * Usage: java FleetFootprint [vehicleCount]   (default 500000)
+ *
+ * Both layouts are filled with the same synthetic fleet (a few dozen makes and
+ * models, like a real rental fleet) and the retained heap is measured after GC.
+ * Run with a fixed heap (e.g. -Xms2g -Xmx2g) for stable numbers.
+ */
+public class FleetFootprint {
+    private static final String[] MAKES = {"Toyota", "Honda", "Ford", "Nissan", "Suzuki", "BMW", "Kia", "Hyundai"};
+    private static final String[] MODELS = {"Corolla", "Civic", "Focus", "Sunny", "Swift", "320i", "Rio", "Elantra",
+            "Camry", "Accord", "Fiesta", "Leaf", "Alto", "X5", "Sportage", "Tucson"};
+    private static final String[] TYPES = {"Sedan", "Hatchback", "SUV", "Van"};
+    private static final String[] SEATS = {"2", "4", "5", "7", "8"};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        long base = usedHeap();
+        Cars[] objects = new Cars[n];
+        for (int i = 0; i < n; i++) objects[i] = newCar(i);
+        long objectBytes = usedHeap() - base;
+        System.out.println("Cars[] retained " + objects.length + " vehicles");
+        objects = null;
+
+        base = usedHeap();
+        FleetStore store = new FleetStore();
+        for (int i = 0; i < n; i++) store.add(newCar(i));
+        long storeBytes = usedHeap() - base;
+        System.out.println("FleetStore retained " + store.size() + " vehicles");
+
+        System.out.println();
+        System.out.println("Vehicles:            " + n);
+        System.out.println("Cars objects:        " + kb(objectBytes) + " KB (" + objectBytes / n + " bytes/vehicle)");
+        System.out.println("FleetStore columns:  " + kb(storeBytes) + " KB (" + storeBytes / n + " bytes/vehicle)");
+        if (storeBytes > 0) {
+            System.out.println("Ratio:               " + String.format("%.1fx smaller", (double) objectBytes / storeBytes));
+        }
+    }
+
+    // Fresh strings on every call, as they would be when read from the console or a file
+    private static Cars newCar(int i) {
+        return new Cars(new String(MODELS[i % MODELS.length]), new String(MAKES[i % MAKES.length]),
+                10_000 + i % 90_000, (30 + i % 70) + ".50",
+                new String(TYPES[i % TYPES.length]), new String(SEATS[i % SEATS.length]));
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static long kb(long bytes) {
+        return bytes / 1024;
+    }
+}
@@ -0,0 +1,186 @@
+package carrental;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * FleetLister: paged listing of the fleet in a chosen order and format.
+ *
+ * A page is rendered into one reused StringBuilder and written with a single call,
+ * so the cost of a page depends on the page size, not on the fleet size:
+ * - ID order reads vehicles offset+1 .. offset+limit directly;
+ * - other orders use a sorted permutation of the ids that is built once and reused
+ *   until the fleet changes (FleetStore.modCount, plus mileageModCount for the
+ *   mileage order), so paging through a large fleet sorts it once, not once per page.
+ *
+ * Formats: TEXT (one block per car, like Cars.displayCarDetails), COMPACT (one line
+ * per car) and JSON (the whole page as one single-line object).
+ *
+ * Not thread-safe (the buffer and permutations are reused); use one per thread.
+ */
+public class FleetLister {
+    public enum Order { ID, MAKE, RATE, RATE_DESC, MILEAGE }
+
+    public enum Format { TEXT, COMPACT, JSON }
+
+    private final FleetStore fleet;
+    private final StringBuilder page = new StringBuilder(4096);
+
+    // Cached permutation per order, with the modification count it was built at
+    private final int[][] permutations = new int[Order.values().length][];
+    private final int[] builtAt = new int[Order.values().length];
+
+    public FleetLister(FleetStore fleet) {
+        this.fleet = fleet;
+    }
+
+    // Write one page to out and flush it. Returns the offset of the next page, or -1 if this was the last.
+    public int writePage(Writer out, int offset, int limit, Order order, Format format) throws IOException {
+        page.setLength(0);
+        int next = renderPage(page, offset, limit, order, format);
+        out.append(page);
+        out.flush();
+        return next;
+    }
+
+    // Append one page to sb. Returns the offset of the next page, or -1 if this was the last.
+    public int renderPage(StringBuilder sb, int offset, int limit, Order order, Format format) {
+        if (offset < 0 || limit <= 0) throw new IllegalArgumentException("Invalid page: offset " + offset + ", limit " + limit);
+        long started = System.nanoTime();
+
+        int[] ids = order == Order.ID ? null : permutation(order);
+        int total = ids == null ? fleet.size() : ids.length;
+        int end = (int) Math.min(total, (long) offset + limit);
+
+        if (format == Format.JSON) {
+            sb.append("{\"offset\":").append(offset).append(",\"total\":").append(total).append(",\"cars\":[");
+        }
+        for (int i = offset; i < end; i++) {
+            int id = ids == null ? i + 1 : ids[i];
+            switch (format) {
+                case TEXT:
+                    appendText(sb, id);
+                    break;
+                case COMPACT:
+                    appendCompact(sb, id);
+                    break;
+                case JSON:
+                    if (i > offset) sb.append(',');
+                    appendJson(sb, id);
+                    break;
+            }
+        }
+        int next = end < total ? end : -1;
+        if (format == Format.JSON) sb.append("],\"next\":").append(next).append('}');
+        Metrics.LIST_CARS.record(started);
+        return next;
+    }
+
+    private void appendText(StringBuilder sb, int id) {
+        sb.append("---- Car #").append(id).append(" ----\n");
+        sb.append("Model: ").append(fleet.getModel(id)).append('\n');
+        sb.append("Make: ").append(fleet.getMake(id)).append('\n');
+        sb.append("Millege: ").append(fleet.getMileage(id)).append('\n');
+        sb.append("Rate Per Day: ").append(Money.format(fleet.getRateCents(id))).append('\n');
+        sb.append("Type: ").append(fleet.getType(id)).append('\n');
+        sb.append("Seating Capacity: ").append(fleet.getSeatingCapacity(id)).append("\n\n");
+    }
+
+    private void appendCompact(StringBuilder sb, int id) {
+        sb.append('#').append(id).append(' ').append(fleet.getMake(id)).append(' ').append(fleet.getModel(id))
+                .append(" | ").append(fleet.getType(id)).append(", ").append(fleet.getSeatingCapacity(id))
+                .append(" seats | ").append(fleet.getMileage(id)).append(" km | ")
+                .append(Money.format(fleet.getRateCents(id))).append("/day\n");
+    }
+
+    private void appendJson(StringBuilder sb, int id) {
+        sb.append("{\"id\":").append(id);
+        sb.append(",\"make\":");
+        appendJsonString(sb, fleet.getMake(id));
+        sb.append(",\"model\":");
+        appendJsonString(sb, fleet.getModel(id));
+        sb.append(",\"mileage\":").append(fleet.getMileage(id));
+        sb.append(",\"ratePerDay\":").append(Money.format(fleet.getRateCents(id)));
+        sb.append(",\"type\":");
+        appendJsonString(sb, fleet.getType(id));
+        sb.append(",\"seatingCapacity\":");
+        appendJsonString(sb, fleet.getSeatingCapacity(id));
+        sb.append('}');
+    }
+
+    static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    // Ids sorted by order, rebuilt only when the fleet has changed since the last build
+    private int[] permutation(Order order) {
+        int o = order.ordinal();
+        int modCount = order == Order.MILEAGE ? fleet.modCount() + fleet.mileageModCount() : fleet.modCount();
+        if (permutations[o] != null && builtAt[o] == modCount) return permutations[o];
+
+        int n = fleet.size();
+        long[] values = new long[n];
+        int[] makeRank = order == Order.MAKE ? ranks(fleet.makes()) : null;
+        int[] modelRank = order == Order.MAKE ? ranks(fleet.models()) : null;
+        int models = order == Order.MAKE ? fleet.models().size() : 0;
+        for (int id = 1; id <= n; id++) {
+            long value;
+            switch (order) {
+                case MAKE:
+                    value = (long) makeRank[fleet.makeCode(id)] * models + modelRank[fleet.modelCode(id)];
+                    break;
+                case RATE:
+                    value = fleet.getRateCents(id);
+                    break;
+                case RATE_DESC:
+                    value = -fleet.getRateCents(id);
+                    break;
+                default:
+                    value = fleet.getMileage(id);
+            }
+            values[id - 1] = value;
+        }
+
+        // Sort packed (rank << 32 | id) longs: no boxing, ties broken by id. Ranking the
+        // distinct values first keeps any long value (a rate of 2^31 cents or more) from
+        // spilling into the id bits.
+        long[] distinct = values.clone();
+        Arrays.sort(distinct);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || distinct[i] != distinct[count - 1]) distinct[count++] = distinct[i];
+        }
+        long[] keys = new long[n];
+        for (int id = 1; id <= n; id++) {
+            long rank = Arrays.binarySearch(distinct, 0, count, values[id - 1]);
+            keys[id - 1] = (rank << 32) | id;
+        }
+        Arrays.sort(keys);
+
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) ids[i] = (int) keys[i];
+        permutations[o] = ids;
+        builtAt[o] = modCount;
+        return ids;
+    }
+
+    // rank[code] = position of the code's string in alphabetical order
+    private static int[] ranks(StringDictionary dictionary) {
+        int n = dictionary.size();
+        String[] sorted = new String[n];
+        for (int i = 0; i < n; i++) sorted[i] = dictionary.decode(i);
+        Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) rank[dictionary.lookup(sorted[i])] = i;
+        return rank;
+    }
+}
@@ -0,0 +1,395 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * FleetSearch: multi-attribute fleet queries backed by secondary indexes.
+ *
+ * Indexes, kept up to date as a RentalListener on the fleet:
+ * - make and type: one bitmap (BitSet of vehicle ids) per dictionary code;
+ * - rate and seats: sorted maps from value to the ids having that value.
+ *
+ * A query estimates how many vehicles each filter matches and drives from the most
+ * selective one, checking the remaining filters per candidate against the fleet's
+ * columns. Make and type together are combined by bitmap intersection first. So a
+ * selective query touches only the vehicles that could match, never the whole fleet.
+ *
+ * Cheapest-first queries with a limit (top-k) walk the rate index in price order and
+ * stop after k matches when that is the cheapest plan; otherwise the candidates go
+ * through a bounded k-element heap. Ties are broken by vehicle id.
+ */
+public class FleetSearch implements RentalListener {
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ArrayList<BitSet> byMake = new ArrayList<>();
+    private final ArrayList<BitSet> byType = new ArrayList<>();
+    private final TreeMap<Long, IdList> byRate = new TreeMap<>();
+    private final TreeMap<Integer, IdList> bySeats = new TreeMap<>();
+    // Cars per make and type code, so planning never has to count a bitmap
+    private int[] makeCounts = new int[0];
+    private int[] typeCounts = new int[0];
+
+    public FleetSearch(FleetStore fleet, BookingEngine bookings) {
+        this.fleet = fleet;
+        this.bookings = bookings;
+        fleet.addListenerWithBackfill(this);
+    }
+
+    // Search criteria; every filter is optional
+    public static final class Query {
+        String make;
+        String type;
+        int minSeats = 0;
+        int maxSeats = Integer.MAX_VALUE;
+        long minRate = 0;
+        long maxRate = Long.MAX_VALUE;
+        boolean availability;
+        int fromDay;
+        int toDay;
+        boolean cheapestFirst;
+        int limit = Integer.MAX_VALUE;
+
+        public Query make(String make) { this.make = make; return this; }
+        public Query type(String type) { this.type = type; return this; }
+        public Query seats(int min, int max) { this.minSeats = min; this.maxSeats = max; return this; }
+        public Query rate(long minCents, long maxCents) { this.minRate = minCents; this.maxRate = maxCents; return this; }
+        public Query availableBetween(int fromDay, int toDay) {
+            if (toDay <= fromDay) throw new IllegalArgumentException("End date must be after start date");
+            this.availability = true;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            return this;
+        }
+        public Query cheapestFirst() { this.cheapestFirst = true; return this; }
+        public Query limit(int limit) {
+            if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+            this.limit = limit;
+            return this;
+        }
+
+        Query copy() {
+            Query q = new Query();
+            q.make = make;
+            q.type = type;
+            q.minSeats = minSeats;
+            q.maxSeats = maxSeats;
+            q.minRate = minRate;
+            q.maxRate = maxRate;
+            q.availability = availability;
+            q.fromDay = fromDay;
+            q.toDay = toDay;
+            q.cheapestFirst = cheapestFirst;
+            q.limit = limit;
+            return q;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Query)) return false;
+            Query q = (Query) o;
+            return Objects.equals(make, q.make) && Objects.equals(type, q.type)
+                    && minSeats == q.minSeats && maxSeats == q.maxSeats
+                    && minRate == q.minRate && maxRate == q.maxRate
+                    && availability == q.availability && fromDay == q.fromDay && toDay == q.toDay
+                    && cheapestFirst == q.cheapestFirst && limit == q.limit;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = Objects.hash(make, type, minSeats, maxSeats, minRate, maxRate);
+            h = 31 * h + (availability ? fromDay * 31 + toDay : -1);
+            return 31 * h + (cheapestFirst ? limit : ~limit);
+        }
+    }
+
+    @Override
+    public void carAdded(int vehicleId, Cars car) {
+        lock.writeLock().lock();
+        try {
+            index(vehicleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Recovery restored cars without carAdded calls: index the whole fleet again
+    @Override
+    public void recovered() {
+        lock.writeLock().lock();
+        try {
+            byMake.clear();
+            byType.clear();
+            byRate.clear();
+            bySeats.clear();
+            makeCounts = new int[0];
+            typeCounts = new int[0];
+            for (int id = 1; id <= fleet.size(); id++) index(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int vehicleId) {
+        int make = fleet.makeCode(vehicleId);
+        int type = fleet.typeCode(vehicleId);
+        bitmap(byMake, make).set(vehicleId);
+        bitmap(byType, type).set(vehicleId);
+        makeCounts = increment(makeCounts, make);
+        typeCounts = increment(typeCounts, type);
+        byRate.computeIfAbsent(fleet.getRateCents(vehicleId), IdList::new).add(vehicleId);
+        bySeats.computeIfAbsent(fleet.getSeats(vehicleId), k -> new IdList(0)).add(vehicleId);
+    }
+
+    private static BitSet bitmap(ArrayList<BitSet> index, int code) {
+        while (index.size() <= code) index.add(new BitSet());
+        return index.get(code);
+    }
+
+    private static int[] increment(int[] counts, int code) {
+        if (code >= counts.length) counts = Arrays.copyOf(counts, Math.max(code + 1, counts.length * 2));
+        counts[code]++;
+        return counts;
+    }
+
+    // Ids of matching vehicles: in price order if cheapestFirst, else in id order
+    public int[] search(Query q) {
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return run(q);
+        } finally {
+            lock.readLock().unlock();
+            Metrics.SEARCH.record(started);
+        }
+    }
+
+    private int[] run(Query q) {
+        // Equality filters: intersect their bitmaps. Their estimate is the smaller per-key
+        // count, an upper bound on the intersection.
+        long fleetSize = fleet.size();
+        long eqCount = fleetSize;
+        BitSet eq = null;
+        if (q.make != null) {
+            int code = fleet.makes().lookup(q.make);
+            eq = lookup(byMake, code);
+            if (eq == null) return new int[0];
+            eqCount = makeCounts[code];
+        }
+        if (q.type != null) {
+            int code = fleet.types().lookup(q.type);
+            BitSet t = lookup(byType, code);
+            if (t == null) return new int[0];
+            eqCount = Math.min(eqCount, typeCounts[code]);
+            if (eq == null) {
+                eq = t;
+            } else {
+                eq = (BitSet) eq.clone();
+                eq.and(t);
+            }
+        }
+
+        // Estimate each filter's matches and drive from the smallest. Every car is in the
+        // rate index, so an open rate range needs no walk, and a filtered one is counted
+        // only up to the largest bound below the fleet size that it is compared with
+        // (no range can exceed the fleet, so the other comparisons hold anyway).
+        NavigableMap<Long, IdList> rates = byRate.subMap(q.minRate, true, q.maxRate, true);
+        NavigableMap<Integer, IdList> seats = bySeats.subMap(q.minSeats, true, q.maxSeats, true);
+        boolean rateFiltered = q.minRate > 0 || q.maxRate < Long.MAX_VALUE;
+        boolean seatsFiltered = q.minSeats > 0 || q.maxSeats < Integer.MAX_VALUE;
+        long seatsCount = seatsFiltered ? count(seats, fleetSize) : fleetSize;
+        boolean topK = q.cheapestFirst && q.limit != Integer.MAX_VALUE;
+        long topKBound = Math.min(eqCount, seatsCount) * 4;
+        long rateCap = Math.max(topK ? below(topKBound, fleetSize) : 0,
+                Math.max(below(eqCount, fleetSize), below(seatsCount, fleetSize)));
+        long rateCount = rateFiltered ? count(rates, rateCap) : fleetSize;
+
+        Collector out = new Collector(q.cheapestFirst, q.limit);
+
+        // Top-k in price order: walk the rate index and stop early
+        if (topK && rateCount <= topKBound) {
+            for (IdList ids : rates.values()) {
+                for (int i = 0; i < ids.size; i++) {
+                    int id = ids.ids[i];
+                    if (!matches(q, id, eq)) continue;
+                    out.add(id, ids.rate);
+                    if (out.full()) return out.result();
+                }
+            }
+            return out.result();
+        }
+
+        if (eq != null && eqCount <= rateCount && eqCount <= seatsCount) {
+            for (int id = eq.nextSetBit(0); id >= 0; id = eq.nextSetBit(id + 1)) {
+                if (matches(q, id, null)) out.add(id, fleet.getRateCents(id));
+                // Ids ascend here, so the first `limit` matches are the answer
+                if (!q.cheapestFirst && out.full()) break;
+            }
+        } else if (rateFiltered && rateCount <= seatsCount) {
+            drive(rates.values(), q, eq, out);
+        } else if (seatsFiltered) {
+            drive(seats.values(), q, eq, out);
+        } else {
+            for (int id = 1; id <= fleetSize; id++) {
+                if (matches(q, id, eq)) out.add(id, fleet.getRateCents(id));
+                if (!q.cheapestFirst && out.full()) break;
+            }
+        }
+        return out.result();
+    }
+
+    private void drive(Iterable<IdList> lists, Query q, BitSet eq, Collector out) {
+        for (IdList ids : lists) {
+            for (int i = 0; i < ids.size; i++) {
+                int id = ids.ids[i];
+                if (matches(q, id, eq)) out.add(id, fleet.getRateCents(id));
+            }
+        }
+    }
+
+    // Whether vehicle id passes every filter except availability
+    boolean matchesAttributes(Query q, int id) {
+        if (q.make != null && !q.make.equals(fleet.getMake(id))) return false;
+        if (q.type != null && !q.type.equals(fleet.getType(id))) return false;
+        long rate = fleet.getRateCents(id);
+        int seats = fleet.getSeats(id);
+        return rate >= q.minRate && rate <= q.maxRate && seats >= q.minSeats && seats <= q.maxSeats;
+    }
+
+    private boolean matches(Query q, int id, BitSet eq) {
+        if (eq != null && !eq.get(id)) return false;
+        long rate = fleet.getRateCents(id);
+        if (rate < q.minRate || rate > q.maxRate) return false;
+        int seats = fleet.getSeats(id);
+        if (seats < q.minSeats || seats > q.maxSeats) return false;
+        return !q.availability || bookings.isFree(id, q.fromDay, q.toDay); // false in MAINTENANCE
+    }
+
+    private static BitSet lookup(ArrayList<BitSet> index, int code) {
+        return code < 0 || code >= index.size() ? null : index.get(code);
+    }
+
+    private static long below(long bound, long fleetSize) {
+        return bound < fleetSize ? bound : 0;
+    }
+
+    // Ids in the lists, or some value above cap once the total passes it
+    private static long count(Map<?, IdList> lists, long cap) {
+        long n = 0;
+        for (IdList ids : lists.values()) {
+            n += ids.size;
+            if (n > cap) break;
+        }
+        return n;
+    }
+
+    // Growable int array of vehicle ids; rate-index lists remember their rate
+    private static final class IdList {
+        final long rate;
+        int[] ids = new int[4];
+        int size;
+
+        IdList(long rate) {
+            this.rate = rate;
+        }
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    // Gathers the best `limit` results in a max-heap ordered by (rate, id) for price order
+    // or by id otherwise, so ties and truncation are deterministic either way. Rate and
+    // id are compared as separate fields, so any long rate orders correctly.
+    private static final class Collector {
+        private final boolean byPrice;
+        private final int limit;
+        private long[] rates = new long[16];
+        private int[] ids = new int[16];
+        private int size;
+
+        Collector(boolean byPrice, int limit) {
+            this.byPrice = byPrice;
+            this.limit = limit;
+        }
+
+        boolean full() {
+            return size >= limit;
+        }
+
+        void add(int id, long rate) {
+            if (!byPrice) rate = 0;
+            if (size < limit) {
+                if (size == ids.length) {
+                    rates = Arrays.copyOf(rates, size * 2);
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                rates[size] = rate;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (before(rate, id, rates[0], ids[0])) {
+                rates[0] = rate;
+                ids[0] = id;
+                siftDown(0, size);
+            }
+        }
+
+        private static boolean before(long rateA, int idA, long rateB, int idB) {
+            return rateA < rateB || (rateA == rateB && idA < idB);
+        }
+
+        // Whether item a belongs after item b
+        private boolean after(int a, int b) {
+            return before(rates[b], ids[b], rates[a], ids[a]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!after(i, parent)) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int l = 2 * i + 1;
+                int r = l + 1;
+                int largest = i;
+                if (l < end && after(l, largest)) largest = l;
+                if (r < end && after(r, largest)) largest = r;
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long rate = rates[a];
+            rates[a] = rates[b];
+            rates[b] = rate;
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+
+        // Heap-sort in place: the largest goes to the end, one at a time
+        int[] result() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * FleetStore: growable, column-oriented store for the cars in the fleet.
+ *
+ * Instead of one Cars object per vehicle (object header, four String references,
+ * a boxed copy of every make/model string), each field lives in its own primitive
+ * column and repeated strings are replaced by StringDictionary codes.
+ *
+ * Vehicle ids are dense and start at 1 (the same number shown as "Car #n"), so a
+ * lookup by id is a direct array index: O(1), no scanning. Slot 0 is never used.
+ * Columns double in size when full, so the fleet has no fixed limit.
+ *
+ * Run FleetFootprint to compare the memory use of both layouts.
+ *
+ * The mileage column holds each vehicle's latest odometer reading; the full history
+ * of readings (taken at pickup, return and service) is kept in an OdometerLog.
+ * Each vehicle's rental state is kept, lock-free, in a VehicleLifecycle; every change
+ * reaches listeners (pickups and returns as odometer readings), so it is persisted.
+ *
+ * Thread safety: adding vehicles is synchronized; reads take no lock. A new vehicle
+ * is only published (through the volatile size) after all its columns are written,
+ * so any id a reader sees as valid has fully written fields. Changes to one vehicle
+ * (mileage, readings, lifecycle moves) take only that vehicle's lock stripe, which
+ * also orders their listener calls, so check-outs of different cars do not contend.
+ * Growing the columns takes every stripe, so no write lands in an array being copied.
+ */
+public class FleetStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int STRIPES = 256; // power of two
+
+    // Shared dictionaries for the repeated string fields
+    private final StringDictionary makes = new StringDictionary();
+    private final StringDictionary models = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+    private final StringDictionary seats = new StringDictionary();
+
+    // One column per field, indexed by vehicle id
+    private int[] makeCode = new int[INITIAL_CAPACITY];
+    private int[] modelCode = new int[INITIAL_CAPACITY];
+    private int[] typeCode = new int[INITIAL_CAPACITY];
+    private int[] seatsCode = new int[INITIAL_CAPACITY];
+    private int[] seatCount = new int[INITIAL_CAPACITY]; // seatingCapacity parsed, for range queries
+    private int[] mileage = new int[INITIAL_CAPACITY];
+    private long[] rateCents = new long[INITIAL_CAPACITY];
+
+    private final OdometerLog odometer = new OdometerLog();
+    private final VehicleLifecycle lifecycle = new VehicleLifecycle();
+
+    private volatile int size = 0;
+    // Bumped when cars are added (mileageModCount when a mileage changes), so readers can
+    // tell if cached views are stale; readings, which change only mileage, leave modCount alone
+    private volatile int modCount = 0;
+    private final AtomicInteger mileageModCount = new AtomicInteger();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+    }
+
+    private final CopyOnWriteArrayList<RentalListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(RentalListener listener) {
+        listeners.add(listener);
+    }
+
+    // Register a listener and first replay carAdded for every existing car, atomically
+    // with respect to new additions (so the listener sees each car exactly once)
+    public synchronized void addListenerWithBackfill(RentalListener listener) {
+        for (int id = 1; id <= size; id++) listener.carAdded(id, get(id));
+        listeners.add(listener);
+    }
+
+    // Add a car to the fleet and return its vehicle id.
+    // Throws IllegalArgumentException if its rate is out of range (see Money.checkRate).
+    public int add(Cars car) {
+        long started = System.nanoTime();
+        Money.checkRate(car.getRateCents());
+        int id;
+        synchronized (this) {
+            id = size + 1;
+            if (id == mileage.length) grow(id + 1);
+            write(id, car);
+            size = id;
+            modCount++;
+            for (RentalListener l : listeners) l.carAdded(id, car);
+        }
+        Metrics.ADD_CAR.record(started);
+        return id;
+    }
+
+    // Add cars[0..count) under one lock acquisition (bulk import).
+    // Returns the id of the first car; the rest follow consecutively. Adds nothing and
+    // throws IllegalArgumentException if any rate is out of range.
+    public synchronized int addBatch(Cars[] cars, int count) {
+        for (int i = 0; i < count; i++) Money.checkRate(cars[i].getRateCents());
+        int first = size + 1;
+        if (first + count > mileage.length) grow(first + count);
+        for (int i = 0; i < count; i++) write(first + i, cars[i]);
+        size = first + count - 1;
+        modCount++;
+        for (int i = 0; i < count; i++) {
+            for (RentalListener l : listeners) l.carAdded(first + i, cars[i]);
+        }
+        return first;
+    }
+
+    // Re-create a car during recovery: like add, but no listener or metric sees it
+    synchronized int restore(Cars car) {
+        int id = size + 1;
+        if (id == mileage.length) grow(id + 1);
+        write(id, car);
+        size = id;
+        modCount++;
+        return id;
+    }
+
+    // Tell listeners that recovery is complete (see RentalListener.recovered)
+    public synchronized void recovered() {
+        for (RentalListener l : listeners) l.recovered();
+    }
+
+    private void write(int id, Cars car) {
+        makeCode[id] = makes.encode(car.getMake());
+        modelCode[id] = models.encode(car.getModel());
+        typeCode[id] = types.encode(car.getType());
+        seatsCode[id] = seats.encode(car.getSeatingCapacity());
+        seatCount[id] = car.getSeatCount();
+        mileage[id] = car.getMillege();
+        rateCents[id] = car.getRateCents();
+        odometer.addVehicle(id, car.getMillege());
+        lifecycle.addVehicle(id);
+    }
+
+    // Double every column until it holds minCapacity slots (amortized O(1) per add).
+    // Holds every stripe, since per-vehicle writers update mileage without the monitor.
+    private void grow(int minCapacity) {
+        int capacity = mileage.length;
+        while (capacity < minCapacity) capacity *= 2;
+        for (ReentrantLock stripe : stripes) stripe.lock();
+        try {
+            makeCode = Arrays.copyOf(makeCode, capacity);
+            modelCode = Arrays.copyOf(modelCode, capacity);
+            typeCode = Arrays.copyOf(typeCode, capacity);
+            seatsCode = Arrays.copyOf(seatsCode, capacity);
+            seatCount = Arrays.copyOf(seatCount, capacity);
+            mileage = Arrays.copyOf(mileage, capacity);
+            rateCents = Arrays.copyOf(rateCents, capacity);
+        } finally {
+            for (ReentrantLock stripe : stripes) stripe.unlock();
+        }
+    }
+
+    // Lock ordering all changes to one vehicle
+    private ReentrantLock stripe(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    public boolean contains(int id) {
+        return id >= 1 && id <= size;
+    }
+
+    // Number of vehicles in the fleet; valid ids are 1..size()
+    public int size() {
+        return size;
+    }
+
+    // Build a Cars object for the given vehicle (for display or editing)
+    public Cars get(int id) {
+        checkId(id);
+        return new Cars(getModel(id), getMake(id), mileage[id], rateCents[id],
+                getType(id), getSeatingCapacity(id));
+    }
+
+    public String getMake(int id) {
+        checkId(id);
+        return makes.decode(makeCode[id]);
+    }
+
+    public String getModel(int id) {
+        checkId(id);
+        return models.decode(modelCode[id]);
+    }
+
+    public String getType(int id) {
+        checkId(id);
+        return types.decode(typeCode[id]);
+    }
+
+    public String getSeatingCapacity(int id) {
+        checkId(id);
+        return seats.decode(seatsCode[id]);
+    }
+
+    // Seating capacity as a number (0 if it was not numeric)
+    public int getSeats(int id) {
+        checkId(id);
+        return seatCount[id];
+    }
+
+    public int getMileage(int id) {
+        checkId(id);
+        return mileage[id];
+    }
+
+    public void setMileage(int id, int value) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            mileage[id] = value;
+            mileageModCount.incrementAndGet();
+            for (RentalListener l : listeners) l.mileageChanged(id, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Re-apply a logged mileage change (recovery); listeners are not notified
+    void restoreMileage(int id, int value) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            mileage[id] = value;
+            mileageModCount.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public OdometerLog odometer() {
+        return odometer;
+    }
+
+    public VehicleLifecycle lifecycle() {
+        return lifecycle;
+    }
+
+    public VehicleState getState(int id) {
+        checkId(id);
+        return lifecycle.state(id);
+    }
+
+    public boolean isAvailable(int id) {
+        checkId(id);
+        return lifecycle.isAvailable(id);
+    }
+
+    // Move a vehicle to target (reserve, release, maintenance) if its state allows it;
+    // false, changing nothing, if not. Pickups and returns go through start/endRental.
+    public boolean moveState(int id, VehicleState target) {
+        checkId(id);
+        if (target == VehicleState.RENTED || target == VehicleState.RETURNED) {
+            throw new IllegalArgumentException("Use pickup/return to rent or return a vehicle");
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            if (!lifecycle.moveTo(id, target)) return false;
+            for (RentalListener l : listeners) l.stateChanged(id, target);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Re-apply a logged state (recovery, moving between shards); listeners are not notified
+    void restoreState(int id, VehicleState state) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            lifecycle.set(id, state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Check out (AVAILABLE, RESERVED or RETURNED -> RENTED) with the odometer reading at
+    // pickup on the given epoch day. Throws IllegalStateException if the vehicle is not
+    // available (e.g. a concurrent check-out won), IllegalArgumentException for a bad reading.
+    public void startRental(int id, int day, int km) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            odometer.check(id, day, km, OdometerLog.RENTAL_START);
+            if (!lifecycle.checkOut(id)) throw new IllegalStateException("Vehicle " + id + " is " + lifecycle.state(id));
+            appendReading(id, day, km, OdometerLog.RENTAL_START);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Check in (RENTED -> RETURNED) with the reading at return; returns the km driven
+    public int endRental(int id, int day, int km) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            odometer.check(id, day, km, OdometerLog.RENTAL_END);
+            int startKm = odometer.rentalStartKm(id);
+            if (!lifecycle.checkIn(id)) throw new IllegalStateException("Vehicle " + id + " is " + lifecycle.state(id));
+            appendReading(id, day, km, OdometerLog.RENTAL_END);
+            return km - startKm;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordService(int id, int day, int km) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            odometer.check(id, day, km, OdometerLog.SERVICE);
+            appendReading(id, day, km, OdometerLog.SERVICE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Re-apply a logged reading (recovery); the lifecycle follows the rental it records.
+    // Listeners are not notified.
+    void replayReading(int id, int day, int km, int kind) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            odometer.check(id, day, km, kind);
+            recordReading(id, day, km, kind);
+            if (kind == OdometerLog.RENTAL_START) lifecycle.set(id, VehicleState.RENTED);
+            if (kind == OdometerLog.RENTAL_END) lifecycle.set(id, VehicleState.RETURNED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stripe held
+    private void appendReading(int id, int day, int km, int kind) {
+        recordReading(id, day, km, kind);
+        for (RentalListener l : listeners) l.odometerRead(id, day, km, kind);
+    }
+
+    // Stripe held
+    private void recordReading(int id, int day, int km, int kind) {
+        odometer.record(id, day, km, kind);
+        mileage[id] = km;
+        mileageModCount.incrementAndGet();
+    }
+
+    // Replace a vehicle's reading history (snapshot load, moving between shards). An open
+    // rental means RENTED; callers that know the exact state restore it afterwards.
+    void restoreOdometer(int id, int baseKm, byte[] encoded) {
+        checkId(id);
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            odometer.restore(id, baseKm, encoded);
+            mileage[id] = odometer.lastKm(id);
+            if (odometer.rentalStartKm(id) >= 0) lifecycle.set(id, VehicleState.RENTED);
+            mileageModCount.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int modCount() {
+        return modCount;
+    }
+
+    public int mileageModCount() {
+        return mileageModCount.get();
+    }
+
+    // Dictionary codes, for code that sorts or indexes by make/model without comparing strings
+    int makeCode(int id) { return makeCode[id]; }
+    int modelCode(int id) { return modelCode[id]; }
+    int typeCode(int id) { return typeCode[id]; }
+    StringDictionary makes() { return makes; }
+    StringDictionary models() { return models; }
+    StringDictionary types() { return types; }
+
+    public long getRateCents(int id) {
+        checkId(id);
+        return rateCents[id];
+    }
+
+    private void checkId(int id) {
+        if (!contains(id)) throw new IllegalArgumentException("No vehicle with id " + id);
+    }
+}
@@ -0,0 +1,102 @@
+package carrental;
+
+import java.util.Arrays;
+
+/**
+ * IntervalSchedule: the bookings of one vehicle as a sorted list of non-overlapping
+ * day intervals.
+ *
+ * Intervals are half-open [startDay, endDay): a car returned on day D can be picked
+ * up again on day D. Because intervals never overlap, sorting them by start also
+ * sorts them by end, so "is the car free from D1 to D2" only has to look at the one
+ * interval with the greatest start before D2 (a binary search, O(log n)).
+ *
+ * Each interval also carries the booking sequence number that created it.
+ *
+ * Schedules are immutable: with() and without() return a new schedule. That lets
+ * BookingEngine publish a vehicle's schedule with a single reference write, so
+ * readers never lock and never see a half-updated schedule.
+ */
+public final class IntervalSchedule {
+    public static final IntervalSchedule EMPTY = new IntervalSchedule(new int[0], new int[0], new int[0]);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] seqs;
+
+    private IntervalSchedule(int[] starts, int[] ends, int[] seqs) {
+        this.starts = starts;
+        this.ends = ends;
+        this.seqs = seqs;
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public int startAt(int index) { return starts[index]; }
+    public int endAt(int index) { return ends[index]; }
+    public int seqAt(int index) { return seqs[index]; }
+
+    // True if no interval overlaps [from, to)
+    public boolean isFree(int from, int to) {
+        int i = lastStartingBefore(to);
+        return i < 0 || ends[i] <= from;
+    }
+
+    // A copy with [start, end) added, or null if it overlaps an existing interval
+    public IntervalSchedule with(int start, int end, int seq) {
+        int i = lastStartingBefore(end);
+        if (i >= 0 && ends[i] > start) return null;
+
+        int at = i + 1;
+        int size = starts.length;
+        int[] newStarts = new int[size + 1];
+        int[] newEnds = new int[size + 1];
+        int[] newSeqs = new int[size + 1];
+        System.arraycopy(starts, 0, newStarts, 0, at);
+        System.arraycopy(ends, 0, newEnds, 0, at);
+        System.arraycopy(seqs, 0, newSeqs, 0, at);
+        newStarts[at] = start;
+        newEnds[at] = end;
+        newSeqs[at] = seq;
+        System.arraycopy(starts, at, newStarts, at + 1, size - at);
+        System.arraycopy(ends, at, newEnds, at + 1, size - at);
+        System.arraycopy(seqs, at, newSeqs, at + 1, size - at);
+        return new IntervalSchedule(newStarts, newEnds, newSeqs);
+    }
+
+    // A copy without the interval at index
+    public IntervalSchedule without(int index) {
+        int size = starts.length;
+        if (size == 1) return EMPTY;
+
+        int[] newStarts = Arrays.copyOf(starts, size - 1);
+        int[] newEnds = Arrays.copyOf(ends, size - 1);
+        int[] newSeqs = Arrays.copyOf(seqs, size - 1);
+        System.arraycopy(starts, index + 1, newStarts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, newEnds, index, size - index - 1);
+        System.arraycopy(seqs, index + 1, newSeqs, index, size - index - 1);
+        return new IntervalSchedule(newStarts, newEnds, newSeqs);
+    }
+
+    // Index of the interval created by booking seq, or -1
+    public int indexOf(int seq) {
+        for (int i = 0; i < seqs.length; i++) {
+            if (seqs[i] == seq) return i;
+        }
+        return -1;
+    }
+
+    // Binary search: index of the last interval whose start is < day, or -1
+    private int lastStartingBefore(int day) {
+        int lo = 0;
+        int hi = starts.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < day) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return hi;
+    }
+}
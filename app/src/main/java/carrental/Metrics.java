@@ -0,0 +1,125 @@
+package carrental;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics: process-wide latency and throughput statistics for rental operations.
+ *
+ * Each operation has one OperationStats, recorded where the operation is implemented
+ * (so the console, batch mode and HTTP service are all covered). They are exposed as
+ * JMX MBeans (jconsole / VisualVM, under "carrental") and can be dumped periodically
+ * as text or single-line JSON by startReporter().
+ */
+public final class Metrics {
+    public static final OperationStats ADD_CAR = new OperationStats("addCar");
+    public static final OperationStats LIST_CARS = new OperationStats("listCars");
+    public static final OperationStats SEARCH = new OperationStats("search");
+    public static final OperationStats BOOK = new OperationStats("book");         // failure = conflict
+    public static final OperationStats CANCEL = new OperationStats("cancel");     // failure = not found
+    public static final OperationStats HTTP_REQUEST = new OperationStats("httpRequest"); // failure = 4xx/5xx
+
+    private static final OperationStats[] ALL = {ADD_CAR, LIST_CARS, SEARCH, BOOK, CANCEL, HTTP_REQUEST};
+
+    private static boolean registered;
+
+    private Metrics() {}
+
+    public static OperationStats[] all() {
+        return ALL.clone();
+    }
+
+    // Register every operation with the platform MBean server; safe to call more than once
+    public static synchronized void registerMBeans() {
+        if (registered) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationStats op : ALL) {
+                ObjectName name = new ObjectName("carrental:type=Operation,name=" + op.name());
+                if (!server.isRegistered(name)) server.registerMBean(op, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBeans", e);
+        }
+        registered = true;
+    }
+
+    // Register another MBean (e.g. a cache) under name, unless that name is taken
+    public static void registerMBean(Object mbean, String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register MBean " + name, e);
+        }
+    }
+
+    // One line per operation: name, count, failures, mean/p50/p99/p99.9/max in microseconds
+    public static void appendText(StringBuilder sb) {
+        sb.append("# metrics ").append(Instant.now()).append('\n');
+        for (OperationStats op : ALL) {
+            sb.append(String.format(Locale.ROOT,
+                    "%-12s count=%d failures=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                    op.name(), op.getCount(), op.getFailures(), op.getMeanMicros(), op.getP50Micros(),
+                    op.getP99Micros(), op.getP999Micros(), op.getMaxMicros()));
+        }
+    }
+
+    // {"time":"..","operations":{"addCar":{"count":..,"failures":..,"meanUs":..,...},...}}
+    public static void appendJson(StringBuilder sb) {
+        sb.append("{\"time\":\"").append(Instant.now()).append("\",\"operations\":{");
+        for (int i = 0; i < ALL.length; i++) {
+            OperationStats op = ALL[i];
+            if (i > 0) sb.append(',');
+            sb.append('"').append(op.name()).append("\":{\"count\":").append(op.getCount())
+                    .append(",\"failures\":").append(op.getFailures())
+                    .append(",\"meanUs\":").append(micros(op.getMeanMicros()))
+                    .append(",\"p50Us\":").append(micros(op.getP50Micros()))
+                    .append(",\"p90Us\":").append(micros(op.getP90Micros()))
+                    .append(",\"p99Us\":").append(micros(op.getP99Micros()))
+                    .append(",\"p999Us\":").append(micros(op.getP999Micros()))
+                    .append(",\"maxUs\":").append(micros(op.getMaxMicros())).append('}');
+        }
+        sb.append("}}");
+    }
+
+    private static String micros(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    // Dump the metrics to out every periodSeconds on a daemon thread; shut the returned
+    // executor down to stop. The writer is flushed after every dump.
+    public static ScheduledExecutorService startReporter(Writer out, long periodSeconds, boolean json) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> {
+            StringBuilder sb = new StringBuilder(1024);
+            if (json) {
+                appendJson(sb);
+                sb.append('\n');
+            } else {
+                appendText(sb);
+            }
+            try {
+                out.append(sb);
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Metrics dump failed: " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return timer;
+    }
+}
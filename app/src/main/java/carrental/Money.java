@@ -0,0 +1,69 @@
+package carrental;
+
+/**
+ * Money: parsing and formatting of amounts held as long cents.
+ *
+ * Rates are parsed once, when a car is created, so pricing code only ever does
+ * integer arithmetic on cents and never touches strings.
+ */
+public final class Money {
+    private Money() {}
+
+    // Highest daily rate a car may have ($1,000,000). A quote multiplies the rate by at
+    // most about 10^9 price units (a booking across the whole calendar), so any accepted
+    // rate prices without overflowing a long.
+    public static final long MAX_RATE_CENTS = 100_000_000L;
+
+    // Throws IllegalArgumentException if cents is not an acceptable daily rate
+    public static long checkRate(long cents) {
+        if (cents < 0) throw new IllegalArgumentException("Rate must not be negative: " + format(cents));
+        if (cents > MAX_RATE_CENTS) {
+            throw new IllegalArgumentException("Rate is too large: " + format(cents) + " (at most " + format(MAX_RATE_CENTS) + ")");
+        }
+        return cents;
+    }
+
+    // Parse an amount such as "49.99", "50" or "$50.5" into cents.
+    // Throws IllegalArgumentException if the text is not a valid amount or does
+    // not fit in a long once scaled to cents.
+    public static long parseCents(String text) {
+        if (text == null) throw new IllegalArgumentException("Rate is missing");
+        String s = text.trim();
+        if (s.startsWith("$")) s = s.substring(1).trim();
+        if (s.isEmpty()) throw new IllegalArgumentException("Rate is missing");
+
+        long cents = 0;
+        int fractionDigits = -1; // -1 until the decimal point is seen
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9' && fractionDigits < 2) {
+                cents = scale(cents, c - '0', text);
+                if (fractionDigits >= 0) fractionDigits++;
+            } else {
+                throw new IllegalArgumentException("Invalid rate: " + text);
+            }
+        }
+        if (fractionDigits < 0) fractionDigits = 0;
+        for (; fractionDigits < 2; fractionDigits++) cents = scale(cents, 0, text);
+        return cents;
+    }
+
+    // cents * 10 + digit, rejecting amounts too large for a long
+    private static long scale(long cents, int digit, String text) {
+        try {
+            return Math.addExact(Math.multiplyExact(cents, 10), digit);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Rate is too large: " + text);
+        }
+    }
+
+    // Format cents as "49.99" (or "-1.50")
+    public static String format(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long units = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        return sign + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,330 @@
+package carrental;
+
+import java.util.Arrays;
+
+/**
+ * OdometerLog: the full mileage history of every vehicle, compactly encoded.
+ *
+ * Each vehicle has one growable byte array of readings. A reading is two unsigned
+ * varints: (days since the previous reading << 2 | kind) and (km since the previous
+ * reading). Odometers only move forward and readings arrive in day order, so both
+ * deltas are small and non-negative: a typical reading takes 3-4 bytes, against
+ * 30+ for an object with a date and a boxed number. Years of rentals for a large
+ * fleet fit in tens of megabytes.
+ *
+ * Every INDEX_INTERVAL readings the decoder state (day, km, byte offset) is saved in
+ * a small per-vehicle index. "Odometer as of day d" binary-searches the index and
+ * decodes at most INDEX_INTERVAL readings, so range queries cost the same no matter
+ * how long the history is. The km driven in [from, to) is asOf(to) - asOf(from).
+ *
+ * Days are epoch days (>= 0). A vehicle's mileage when it joins the fleet is its
+ * baseline; the first reading is measured from it.
+ *
+ * Owned by FleetStore, which records readings under its own lock; this class has its
+ * own lock so queries never wait for fleet writes.
+ */
+public class OdometerLog {
+    // Reading kinds, stored in the low two bits of the day delta
+    public static final int RENTAL_START = 0;
+    public static final int RENTAL_END = 1;
+    public static final int SERVICE = 2;
+
+    public static final int DEFAULT_SERVICE_INTERVAL_KM = 15_000;
+
+    private static final int INDEX_INTERVAL = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Columns indexed by vehicle id, all guarded by this
+    private byte[][] data = new byte[INITIAL_CAPACITY][];
+    private int[] length = new int[INITIAL_CAPACITY];
+    private int[] count = new int[INITIAL_CAPACITY];
+    private int[] baseKm = new int[INITIAL_CAPACITY];
+    private int[] lastDay = new int[INITIAL_CAPACITY];
+    private int[] lastKm = new int[INITIAL_CAPACITY];
+    private int[] lastKind = new int[INITIAL_CAPACITY];
+    private int[] serviceKm = new int[INITIAL_CAPACITY];      // odometer at the last service (or baseline)
+    private int[] rentalStartKm = new int[INITIAL_CAPACITY];  // odometer at pickup, -1 when not on rent
+    private int[][] index = new int[INITIAL_CAPACITY][];      // (day, km, offset) before every INDEX_INTERVAL-th reading
+    private int vehicles;
+    private long bytes;
+
+    // A vehicle joined the fleet with this mileage
+    synchronized void addVehicle(int id, int km) {
+        if (id >= length.length) grow(id + 1);
+        vehicles = Math.max(vehicles, id);
+        data[id] = null;
+        length[id] = 0;
+        count[id] = 0;
+        baseKm[id] = km;
+        lastDay[id] = 0;
+        lastKm[id] = km;
+        lastKind[id] = -1;
+        serviceKm[id] = km;
+        rentalStartKm[id] = -1;
+        index[id] = null;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = length.length;
+        while (capacity < minCapacity) capacity *= 2;
+        data = Arrays.copyOf(data, capacity);
+        length = Arrays.copyOf(length, capacity);
+        count = Arrays.copyOf(count, capacity);
+        baseKm = Arrays.copyOf(baseKm, capacity);
+        lastDay = Arrays.copyOf(lastDay, capacity);
+        lastKm = Arrays.copyOf(lastKm, capacity);
+        lastKind = Arrays.copyOf(lastKind, capacity);
+        serviceKm = Arrays.copyOf(serviceKm, capacity);
+        rentalStartKm = Arrays.copyOf(rentalStartKm, capacity);
+        index = Arrays.copyOf(index, capacity);
+    }
+
+    // Throws IllegalArgumentException / IllegalStateException without recording anything
+    // if the reading goes back in time or distance, or does not fit the rental state
+    synchronized void check(int id, int day, int km, int kind) {
+        checkId(id);
+        if (day < lastDay[id] || day < 0) throw new IllegalArgumentException("Reading is dated before the last one");
+        if (km < lastKm[id]) {
+            throw new IllegalArgumentException("Odometer cannot go back: last reading is " + lastKm[id] + " km");
+        }
+        if (kind == RENTAL_START && rentalStartKm[id] >= 0) {
+            throw new IllegalStateException("Vehicle " + id + " is already on rent");
+        }
+        if (kind == RENTAL_END && rentalStartKm[id] < 0) throw new IllegalStateException("Vehicle " + id + " is not on rent");
+    }
+
+    // Append a reading that check() accepted
+    synchronized void record(int id, int day, int km, int kind) {
+        int n = count[id];
+        if (n > 0 && n % INDEX_INTERVAL == 0) addIndexEntry(id, n / INDEX_INTERVAL - 1);
+
+        byte[] buf = data[id];
+        int pos = length[id];
+        if (buf == null) {
+            buf = data[id] = new byte[INITIAL_CAPACITY];
+            bytes += buf.length;
+        } else if (pos + 10 > buf.length) {
+            // Grow by half: the tail waste stays small for long histories
+            byte[] bigger = Arrays.copyOf(buf, buf.length + (buf.length >> 1) + 10);
+            bytes += bigger.length - buf.length;
+            buf = data[id] = bigger;
+        }
+        pos = putVarint(buf, pos, (long) (day - lastDay[id]) << 2 | kind);
+        pos = putVarint(buf, pos, km - lastKm[id]);
+        length[id] = pos;
+        count[id] = n + 1;
+        apply(id, day, km, kind);
+    }
+
+    private void apply(int id, int day, int km, int kind) {
+        lastDay[id] = day;
+        lastKm[id] = km;
+        lastKind[id] = kind;
+        if (kind == RENTAL_START) rentalStartKm[id] = km;
+        if (kind == RENTAL_END) rentalStartKm[id] = -1;
+        if (kind == SERVICE) serviceKm[id] = km;
+    }
+
+    private void addIndexEntry(int id, int entry) {
+        int[] idx = index[id];
+        if (idx == null) {
+            idx = index[id] = new int[3 * 4];
+        } else if (3 * entry + 3 > idx.length) {
+            idx = index[id] = Arrays.copyOf(idx, idx.length * 2);
+        }
+        idx[3 * entry] = lastDay[id];
+        idx[3 * entry + 1] = lastKm[id];
+        idx[3 * entry + 2] = length[id];
+    }
+
+    // Whether this exact reading is the vehicle's latest (log replay can meet a reading
+    // that the snapshot already holds)
+    synchronized boolean isLast(int id, int day, int km, int kind) {
+        return count[id] > 0 && lastDay[id] == day && lastKm[id] == km && lastKind[id] == kind;
+    }
+
+    // Odometer reading in force at the start of day: the latest reading dated before it
+    public synchronized int asOf(int id, int day) {
+        checkId(id);
+        if (day > lastDay[id]) return lastKm[id];
+
+        // Last index entry whose day is before `day`; decode onwards from there
+        int fromDay = 0;
+        int fromKm = baseKm[id];
+        int pos = 0;
+        int readings = count[id];
+        int[] idx = index[id];
+        int entries = (readings - 1) / INDEX_INTERVAL;
+        int lo = 0;
+        int hi = entries - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (idx[3 * mid] < day) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        if (hi >= 0) {
+            fromDay = idx[3 * hi];
+            fromKm = idx[3 * hi + 1];
+            pos = idx[3 * hi + 2];
+        }
+
+        byte[] buf = data[id];
+        int end = length[id];
+        while (pos < end) {
+            long head = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                head |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int readingDay = fromDay + (int) (head >>> 2);
+            if (readingDay >= day) break;
+            long delta = 0;
+            shift = 0;
+            do {
+                b = buf[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            fromDay = readingDay;
+            fromKm += (int) delta;
+        }
+        return fromKm;
+    }
+
+    // Km driven by one vehicle over [fromDay, toDay)
+    public synchronized int kmDriven(int id, int fromDay, int toDay) {
+        if (toDay < fromDay) throw new IllegalArgumentException("End date must not be before start date");
+        return asOf(id, toDay) - asOf(id, fromDay);
+    }
+
+    // Km driven by the whole fleet over [fromDay, toDay)
+    public synchronized long kmDriven(int fromDay, int toDay) {
+        long total = 0;
+        for (int id = 1; id <= vehicles; id++) {
+            if (count[id] > 0) total += kmDriven(id, fromDay, toDay);
+        }
+        return total;
+    }
+
+    public synchronized int readings(int id) {
+        checkId(id);
+        return count[id];
+    }
+
+    public synchronized int lastKm(int id) {
+        checkId(id);
+        return lastKm[id];
+    }
+
+    // Odometer at pickup if the vehicle is on rent, else -1
+    public synchronized int rentalStartKm(int id) {
+        checkId(id);
+        return rentalStartKm[id];
+    }
+
+    public synchronized int kmSinceService(int id) {
+        checkId(id);
+        return lastKm[id] - serviceKm[id];
+    }
+
+    public synchronized boolean isServiceDue(int id, int intervalKm) {
+        return kmSinceService(id) >= intervalKm;
+    }
+
+    // Vehicles that have driven at least intervalKm since their last service, in id order
+    public synchronized int[] serviceDue(int intervalKm) {
+        int[] due = new int[16];
+        int n = 0;
+        for (int id = 1; id <= vehicles; id++) {
+            if (lastKm[id] - serviceKm[id] < intervalKm) continue;
+            if (n == due.length) due = Arrays.copyOf(due, n * 2);
+            due[n++] = id;
+        }
+        return Arrays.copyOf(due, n);
+    }
+
+    // Heap bytes held by the encoded readings and their indexes
+    public synchronized long bytesUsed() {
+        long total = bytes;
+        for (int id = 1; id <= vehicles; id++) {
+            if (index[id] != null) total += 4L * index[id].length;
+        }
+        return total;
+    }
+
+    private void checkId(int id) {
+        if (id < 1 || id > vehicles) throw new IllegalArgumentException("No vehicle with id " + id);
+    }
+
+    // Encoded state for a Snapshot. Arrays are only ever appended to (or replaced when
+    // they grow), so holding a reference and the length captures them exactly.
+    static final class Cut {
+        final int[] baseKm;
+        final byte[][] data;
+        final int[] length;
+
+        Cut(int[] baseKm, byte[][] data, int[] length) {
+            this.baseKm = baseKm;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+    synchronized Cut cut(int vehicles) {
+        int n = vehicles + 1;
+        return new Cut(Arrays.copyOf(baseKm, n), Arrays.copyOf(data, n), Arrays.copyOf(length, n));
+    }
+
+    // Baseline and encoded readings of one vehicle (to copy its history elsewhere)
+    synchronized int baseKm(int id) {
+        checkId(id);
+        return baseKm[id];
+    }
+
+    synchronized byte[] history(int id) {
+        checkId(id);
+        return data[id] == null ? new byte[0] : Arrays.copyOf(data[id], length[id]);
+    }
+
+    // Load a vehicle's history written by a Snapshot, rebuilding the derived columns
+    synchronized void restore(int id, int km, byte[] encoded) {
+        addVehicle(id, km);
+        int pos = 0;
+        while (pos < encoded.length) {
+            long head = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[pos++];
+                head |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            long delta = 0;
+            shift = 0;
+            do {
+                b = encoded[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int n = count[id];
+            if (n > 0 && n % INDEX_INTERVAL == 0) addIndexEntry(id, n / INDEX_INTERVAL - 1);
+            length[id] = pos;
+            count[id] = n + 1;
+            apply(id, lastDay[id] + (int) (head >>> 2), lastKm[id] + (int) delta, (int) (head & 3));
+        }
+        data[id] = encoded;
+        bytes += encoded.length;
+    }
+
+    private static int putVarint(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+}
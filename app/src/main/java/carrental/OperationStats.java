@@ -0,0 +1,84 @@
+package carrental;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationStats: call count, failure count and latency histogram for one operation.
+ *
+ * Callers take System.nanoTime() before the operation and pass it to record(), so the
+ * hot path is two nanoTime reads and a few atomic increments, with no allocation.
+ * A "failure" is an outcome the caller counts separately, e.g. a booking conflict;
+ * failed calls are still timed.
+ */
+public class OperationStats implements OperationStatsMBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long startNanos, boolean succeeded) {
+        latency.record(System.nanoTime() - startNanos);
+        if (!succeeded) failures.increment();
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.count();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.mean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.percentile(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.percentile(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.percentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.percentile(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.max() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        failures.reset();
+    }
+}
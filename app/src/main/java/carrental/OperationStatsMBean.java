@@ -0,0 +1,26 @@
+package carrental;
+
+/**
+ * OperationStatsMBean: JMX view of one operation's OperationStats.
+ *
+ * Registered as carrental:type=Operation,name=<operation>. Times are microseconds.
+ */
+public interface OperationStatsMBean {
+    long getCount();
+
+    long getFailures();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,112 @@
+package carrental;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistence: keeps the fleet and bookings on disk across restarts.
+ *
+ * open() recovers state in two steps: load the latest Snapshot (memory-mapped), then
+ * replay only the log generations written since it. Recovery notifies no listener
+ * per change (the change feed and metrics must not count old history as new); once
+ * it is done, listeners get one recovered() call to rebuild their indexes. After that
+ * a WriteAheadLog is
+ * registered on the fleet and booking engine, so every change made through any
+ * path (console, batch, bulk import, ...) is logged.
+ *
+ * A background task takes a new snapshot whenever the current log generation grows
+ * past checkpointBytes, then deletes the older logs. Restart time is therefore
+ * bounded by the snapshot size plus at most checkpointBytes of log, no matter how
+ * much history there is.
+ *
+ * Logged changes are made durable by group commit every few milliseconds; call
+ * sync() to wait for them before confirming an operation to a user.
+ */
+public class Persistence implements Closeable {
+    private static final long COMMIT_MILLIS = 5;
+    private static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+    private final Path dir;
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+    private final WriteAheadLog log;
+    private final long checkpointBytes;
+    private final ScheduledExecutorService checkpointer;
+
+    private Persistence(Path dir, FleetStore fleet, BookingEngine bookings, WriteAheadLog log, long checkpointBytes) {
+        this.dir = dir;
+        this.fleet = fleet;
+        this.bookings = bookings;
+        this.log = log;
+        this.checkpointBytes = checkpointBytes;
+
+        checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpointer");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointer.scheduleWithFixedDelay(this::checkpointIfDue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public static Persistence open(Path dir, FleetStore fleet, BookingEngine bookings) throws IOException {
+        return open(dir, fleet, bookings, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    // Recover into an empty fleet and booking engine, then start logging changes
+    public static Persistence open(Path dir, FleetStore fleet, BookingEngine bookings, long checkpointBytes)
+            throws IOException {
+        if (fleet.size() > 0) throw new IllegalStateException("Recovery needs an empty fleet");
+        Files.createDirectories(dir);
+
+        long generation = Snapshot.load(dir, fleet, bookings);
+        long last = generation;
+        for (long g : WriteAheadLog.generations(dir)) {
+            if (g < generation) continue;
+            WriteAheadLog.replay(WriteAheadLog.file(dir, g), fleet, bookings);
+            last = g;
+        }
+        fleet.recovered();
+
+        WriteAheadLog log = new WriteAheadLog(dir, last, COMMIT_MILLIS);
+        fleet.addListener(log);
+        bookings.addListener(log);
+        return new Persistence(dir, fleet, bookings, log, checkpointBytes);
+    }
+
+    // Wait until every change made so far is on disk
+    public void sync() throws IOException {
+        log.sync();
+    }
+
+    // Take a snapshot now and drop the logs it covers
+    public synchronized void checkpoint() throws IOException {
+        Snapshot.Cut[] cut = new Snapshot.Cut[1];
+        long generation = log.rotate(() -> cut[0] = new Snapshot.Cut(log.generation() + 1, fleet, bookings));
+        Snapshot.write(dir, cut[0], fleet);
+
+        for (long g : WriteAheadLog.generations(dir)) {
+            if (g < generation) Files.deleteIfExists(WriteAheadLog.file(dir, g));
+        }
+    }
+
+    private void checkpointIfDue() {
+        try {
+            if (log.generationBytes() >= checkpointBytes) checkpoint();
+        } catch (IOException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpointer.shutdown();
+        synchronized (this) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package carrental;
+
+/**
+ * QuoteEngine: prices rentals from the fleet's pre-parsed rates.
+ *
+ * Price = rate x days, where weekend days (Saturday, Sunday) carry a surcharge and
+ * rentals of at least longRentalDays get a discount on the whole amount.
+ *
+ * Everything is integer arithmetic on cents and epoch days. The day-dependent part
+ * of a quote is folded into one multiplier per date range ("price units", in
+ * 1/10000 of a day's rate), so a quote is a single multiply by the vehicle's rate.
+ * The batch methods write into caller-supplied arrays and allocate nothing.
+ */
+public class QuoteEngine {
+    // Epoch day 0 (1970-01-01) was a Thursday; with Monday = 0 that is index 3
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    private final FleetStore fleet;
+    private final int weekendSurchargePercent;
+    private final int longRentalDays;
+    private final int longRentalDiscountPercent;
+
+    // Default rules: +20% on weekend days, 10% off rentals of a week or more
+    public QuoteEngine(FleetStore fleet) {
+        this(fleet, 20, 7, 10);
+    }
+
+    public QuoteEngine(FleetStore fleet, int weekendSurchargePercent, int longRentalDays, int longRentalDiscountPercent) {
+        this.fleet = fleet;
+        this.weekendSurchargePercent = weekendSurchargePercent;
+        this.longRentalDays = longRentalDays;
+        this.longRentalDiscountPercent = longRentalDiscountPercent;
+    }
+
+    // Price in cents of renting vehicleId for [startDay, endDay)
+    public long quote(int vehicleId, int startDay, int endDay) {
+        return price(fleet.getRateCents(vehicleId), priceUnits(startDay, endDay));
+    }
+
+    // Price in cents of a rental at rateCents per day for [startDay, endDay)
+    public long quoteRate(long rateCents, int startDay, int endDay) {
+        return price(rateCents, priceUnits(startDay, endDay));
+    }
+
+    // Price count independent requests: totals[i] = quote(vehicleIds[i], startDays[i], endDays[i])
+    public void quoteBatch(int[] vehicleIds, int[] startDays, int[] endDays, long[] totals, int count) {
+        for (int i = 0; i < count; i++) {
+            totals[i] = price(fleet.getRateCents(vehicleIds[i]), priceUnits(startDays[i], endDays[i]));
+        }
+    }
+
+    // Price count vehicles for the same date range (the search page case):
+    // the range is evaluated once and each vehicle costs one multiply.
+    public void quoteRange(int[] vehicleIds, int count, int startDay, int endDay, long[] totals) {
+        long units = priceUnits(startDay, endDay);
+        for (int i = 0; i < count; i++) {
+            totals[i] = price(fleet.getRateCents(vehicleIds[i]), units);
+        }
+    }
+
+    // Multiplier for [startDay, endDay) in 1/10000 of one day's rate
+    public long priceUnits(int startDay, int endDay) {
+        int days = endDay - startDay;
+        if (days <= 0) throw new IllegalArgumentException("End date must be after start date");
+
+        long units = (long) days * 100 + (long) weekendDays(startDay, endDay) * weekendSurchargePercent;
+        if (days >= longRentalDays) units *= 100 - longRentalDiscountPercent;
+        else units *= 100;
+        return units;
+    }
+
+    // Share of priceUnits(start, start + rentalDays) earned on one day of that rental:
+    // summed over the rental's days it gives exactly priceUnits (used for revenue per day)
+    public long dayUnits(int day, int rentalDays) {
+        long units = 100 + (Math.floorMod(day + EPOCH_DAY_OF_WEEK, 7) >= 5 ? weekendSurchargePercent : 0);
+        return units * (rentalDays >= longRentalDays ? 100 - longRentalDiscountPercent : 100);
+    }
+
+    // Round to the nearest cent. Fleet rates are capped (Money.MAX_RATE_CENTS) so this
+    // cannot overflow for them; quoteRate takes any rate, so the multiply is checked.
+    private static long price(long rateCents, long units) {
+        try {
+            return Math.addExact(Math.multiplyExact(rateCents, units), 5_000) / 10_000;
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price is too large: rate " + Money.format(rateCents) + " for " + units / 10_000 + " days");
+        }
+    }
+
+    // Saturdays and Sundays in [startDay, endDay), without iterating over whole weeks
+    static int weekendDays(int startDay, int endDay) {
+        int days = endDay - startDay;
+        int count = (days / 7) * 2;
+        int dow = Math.floorMod(startDay + EPOCH_DAY_OF_WEEK, 7);
+        for (int i = 0, rest = days % 7; i < rest; i++) {
+            if (dow >= 5) count++; // 5 = Saturday, 6 = Sunday
+            dow = dow == 6 ? 0 : dow + 1;
+        }
+        return count;
+    }
+}
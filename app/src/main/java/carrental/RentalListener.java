@@ -0,0 +1,32 @@
+package carrental;
+
+/**
+ * RentalListener: callback for changes to the fleet and bookings.
+ *
+ * FleetStore and BookingEngine call their listeners after each change, while still
+ * holding the lock that ordered it. So, for any one vehicle, listeners see changes in
+ * exactly the order they happened. The flip side is that listeners must be quick and
+ * must never block or call back into the store that notified them.
+ *
+ * Recovery (see Persistence) is the exception: it reloads the fleet and bookings
+ * without any per-change callbacks, so replayed history is never reported as new
+ * changes, and then calls recovered() once.
+ */
+public interface RentalListener {
+    default void carAdded(int vehicleId, Cars car) {}
+
+    default void mileageChanged(int vehicleId, int mileage) {}
+
+    // An odometer reading (kind is one of the OdometerLog kinds) was recorded
+    default void odometerRead(int vehicleId, int day, int mileage, int kind) {}
+
+    // A vehicle was moved to state other than by a pickup or return (those are odometer readings)
+    default void stateChanged(int vehicleId, VehicleState state) {}
+
+    default void booked(long reference, int startDay, int endDay) {}
+
+    default void cancelled(long reference, int startDay, int endDay) {}
+
+    // The fleet and its bookings were reloaded from disk; rebuild anything derived from them
+    default void recovered() {}
+}
@@ -0,0 +1,183 @@
+package carrental;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RentalLoadTest: closed-loop load generator for RentalServer.
+ *
+ *   java -cp app.jar carrental.RentalLoadTest [url|local] [clients] [seconds] [cars]
+ *
+ * "local" (the default) starts an in-memory server on a free port with a generated
+ * fleet; otherwise requests go to the given base URL (e.g. http://localhost:8080).
+ * Each client is a virtual thread that sends its next request as soon as the previous
+ * one completes: 70% availability searches, 20% bookings, 10% fleet pages.
+ *
+ * Reports requests/sec, p50/p99/max latency and a count per status (409 = booking
+ * conflict, 503 = shed by backpressure).
+ */
+public class RentalLoadTest {
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "local";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cars = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        RentalServer local = null;
+        String base = target;
+        if (target.equals("local")) {
+            FleetStore fleet = new FleetStore();
+            BookingEngine bookings = new BookingEngine(fleet);
+            FleetSearch search = new FleetSearch(fleet, bookings);
+            String[] makes = {"Toyota", "Honda", "Ford", "BMW", "Kia"};
+            String[] types = {"Compact", "Sedan", "SUV", "Van"};
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < cars; i++) {
+                fleet.add(new Cars("Model" + i, makes[random.nextInt(makes.length)], random.nextInt(200_000),
+                        2000 + random.nextInt(10_000), types[random.nextInt(types.length)],
+                        (2 + random.nextInt(7)) + " seats"));
+            }
+            QuoteEngine quotes = new QuoteEngine(fleet);
+            AvailabilityCache availability = new AvailabilityCache(fleet, bookings, search, quotes,
+                    AvailabilityCache.DEFAULT_CAPACITY);
+            local = new RentalServer(fleet, bookings, quotes, availability,
+                    new RunningAggregates(fleet, bookings, quotes), null, 0,
+                    RentalServer.DEFAULT_MAX_IN_FLIGHT);
+            local.start();
+            base = "http://localhost:" + local.port();
+        }
+
+        System.out.println("Load test: " + clients + " clients for " + seconds + " s against " + base);
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)   // no h2c upgrade attempt per connection
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Worker[] workers = new Worker[clients];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long started = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                workers[i] = new Worker(http, base, cars, deadline, i);
+                pool.submit(workers[i]);
+            }
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        if (local != null) local.stop(0);
+
+        report(workers, elapsed);
+    }
+
+    private static void report(Worker[] workers, double elapsed) {
+        int total = 0;
+        for (Worker w : workers) total += w.count;
+        long[] latencies = new long[total];
+        int n = 0;
+        long errors = 0;
+        long[] statuses = new long[600];
+        for (Worker w : workers) {
+            System.arraycopy(w.latencies, 0, latencies, n, w.count);
+            n += w.count;
+            errors += w.errors;
+            for (int s = 0; s < 600; s++) statuses[s] += w.statuses[s];
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("requests: %d in %.1f s = %.0f req/s%n", total, elapsed, total / elapsed);
+        if (total > 0) {
+            System.out.printf("latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                    latencies[total - 1] / 1e6);
+        }
+        StringBuilder sb = new StringBuilder("status:");
+        for (int s = 0; s < 600; s++) {
+            if (statuses[s] > 0) sb.append(' ').append(s).append('=').append(statuses[s]);
+        }
+        if (errors > 0) sb.append(" io-errors=").append(errors);
+        System.out.println(sb);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // One closed-loop client; latencies are kept in a private growable array
+    private static final class Worker implements Runnable {
+        private final HttpClient http;
+        private final String base;
+        private final int cars;
+        private final long deadline;
+        private final SplittableRandom random;
+
+        long[] latencies = new long[1 << 14];
+        int count;
+        long errors;
+        final long[] statuses = new long[600];
+
+        Worker(HttpClient http, String base, int cars, long deadline, int seed) {
+            this.http = http;
+            this.base = base;
+            this.cars = cars;
+            this.deadline = deadline;
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = nextRequest();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    record(System.nanoTime() - start);
+                    int status = response.statusCode();
+                    if (status >= 0 && status < statuses.length) statuses[status]++;
+                } catch (IOException e) {
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+        }
+
+        private HttpRequest nextRequest() {
+            int roll = random.nextInt(100);
+            int start = 20_000 + random.nextInt(365);   // a day in 2024-2025
+            int end = start + 1 + random.nextInt(14);
+            if (roll < 70) {
+                return get("/availability?from=" + BookingEngine.formatDay(start) + "&to=" + BookingEngine.formatDay(end)
+                        + "&seats=" + (2 + random.nextInt(5)) + "&limit=10");
+            } else if (roll < 90) {
+                String body = "{\"vehicleId\":" + (1 + random.nextInt(cars)) + ",\"start\":\""
+                        + BookingEngine.formatDay(start) + "\",\"end\":\"" + BookingEngine.formatDay(end) + "\"}";
+                return HttpRequest.newBuilder(URI.create(base + "/bookings"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            } else {
+                return get("/cars?offset=" + random.nextInt(Math.max(1, cars - 20)) + "&limit=20");
+            }
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package carrental;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RentalServer: embedded HTTP/JSON interface to the fleet and bookings.
+ *
+ *   GET    /cars?offset=0&limit=20&order=id     -> {"offset":..,"total":..,"cars":[..],"next":..}
+ *   GET    /cars/{id}                           -> {"id":..,"make":..,..}
+ *   POST   /cars     {"model":..,"make":..,"mileage":..,"ratePerDay":..,"type":..,"seatingCapacity":..}
+ *                                              -> 201 {"id":..}
+ *   GET    /availability?from=..&to=..[&make=..&type=..&seats=..&maxRate=..&limit=..]
+ *                                              -> {"count":..,"cars":[{"id":..,..,"price":..}]}
+ *   POST   /bookings {"vehicleId":..,"start":..,"end":..}
+ *                                              -> 201 {"reference":..,"price":..} | 409
+ *   DELETE /bookings/{reference}               -> 204 | 404
+ *   GET    /analytics?from=..&to=..             -> FleetAnalytics.Report (parallel scan)
+ *   GET    /analytics/live?from=..&to=..        -> RunningAggregates (precomputed)
+ *   GET    /metrics                            -> Metrics.appendJson plus "availabilityCache" stats
+ *
+ * Every request runs on its own virtual thread, so a slow client or an fsync only
+ * parks that request: every lock a request can wait on for long (the write-ahead
+ * log's, the shared lister) is a ReentrantLock, never a monitor, which would pin the
+ * carrier thread. Backpressure: at most maxInFlight requests are handled at once;
+ * beyond that the server answers 503 with Retry-After right away instead of queueing
+ * without bound. Writes are synced to persistence before the response is sent (the
+ * write-ahead log group-commits concurrent requests into one fsync); if that fails
+ * the change stays applied in memory and the client gets a 500 saying it was not saved.
+ */
+public class RentalServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+    public static final int MAX_PAGE = 100;
+
+    static {
+        // The JDK server leaves Nagle's algorithm on by default, so small responses wait for
+        // the client's delayed ACK (~40 ms per request). Must be set before the server class loads.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final FleetStore fleet;
+    private final BookingEngine bookings;
+    private final QuoteEngine quotes;
+    private final AvailabilityCache availability;
+    private final FleetAnalytics analytics;
+    private final RunningAggregates running;
+    private final Persistence persistence; // null when running in memory only
+
+    private final Semaphore inFlight;
+    private final FleetLister lister;      // shared; guarded by listerLock
+    private final ReentrantLock listerLock = new ReentrantLock();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RentalServer(FleetStore fleet, BookingEngine bookings, QuoteEngine quotes, AvailabilityCache availability,
+                        RunningAggregates running, Persistence persistence, int port, int maxInFlight)
+            throws IOException {
+        this.fleet = fleet;
+        this.bookings = bookings;
+        this.quotes = quotes;
+        this.availability = availability;
+        this.analytics = new FleetAnalytics(fleet, bookings, quotes);
+        this.running = running;
+        this.persistence = persistence;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.lister = new FleetLister(fleet);
+
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Stop accepting, give in-flight requests up to delaySeconds to finish
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long started = System.nanoTime();
+        try {
+            dispatch(exchange);
+        } finally {
+            int status = exchange.getResponseCode();
+            Metrics.HTTP_REQUEST.record(started, status > 0 && status < 400);
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        if (!inFlight.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, error("server busy"));
+            return;
+        }
+        try {
+            route(exchange);
+        } catch (DateTimeParseException e) {
+            send(exchange, 400, error("invalid date: " + e.getParsedString()));
+        } catch (NumberFormatException e) {
+            send(exchange, 400, error("invalid number: " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (UncheckedIOException e) {
+            send(exchange, 500, error(e.getMessage()));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(e.toString()));
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> params = queryParams(exchange.getRequestURI());
+
+        if (path.equals("/cars")) {
+            if (method.equals("GET")) listCars(exchange, params);
+            else if (method.equals("POST")) addCar(exchange);
+            else send(exchange, 405, error("use GET or POST"));
+        } else if (path.startsWith("/cars/") && method.equals("GET")) {
+            getCar(exchange, Integer.parseInt(path.substring("/cars/".length())));
+        } else if (path.equals("/metrics") && method.equals("GET")) {
+            StringBuilder body = new StringBuilder(1024);
+            Metrics.appendJson(body);
+            body.setLength(body.length() - 1);
+            availability.appendJson(body.append(",\"availabilityCache\":"));
+            send(exchange, 200, body.append('}'));
+        } else if (path.equals("/analytics") && method.equals("GET")) {
+            StringBuilder body = new StringBuilder(4096);
+            analytics.report(BookingEngine.parseDay(required(params, "from")),
+                    BookingEngine.parseDay(required(params, "to"))).appendJson(body);
+            send(exchange, 200, body);
+        } else if (path.equals("/analytics/live") && method.equals("GET")) {
+            int from = BookingEngine.parseDay(required(params, "from"));
+            int to = BookingEngine.parseDay(required(params, "to"));
+            StringBuilder body = new StringBuilder(4096);
+            running.appendJson(body, from, to);
+            send(exchange, 200, body);
+        } else if (path.equals("/availability") && method.equals("GET")) {
+            availability(exchange, params);
+        } else if (path.equals("/bookings") && method.equals("POST")) {
+            book(exchange);
+        } else if (path.startsWith("/bookings/") && method.equals("DELETE")) {
+            cancel(exchange, BookingEngine.parseReference(path.substring("/bookings/".length())));
+        } else {
+            send(exchange, 404, error("no route for " + method + " " + path));
+        }
+    }
+
+    private void listCars(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+        int limit = Math.min(MAX_PAGE, Integer.parseInt(params.getOrDefault("limit", "20")));
+        FleetLister.Order order = FleetLister.Order.valueOf(params.getOrDefault("order", "id").toUpperCase());
+
+        StringBuilder body = new StringBuilder(256 + 160 * limit);
+        listerLock.lock();
+        try {
+            lister.renderPage(body, offset, limit, order, FleetLister.Format.JSON);
+        } finally {
+            listerLock.unlock();
+        }
+        send(exchange, 200, body);
+    }
+
+    private void getCar(HttpExchange exchange, int id) throws IOException {
+        if (!fleet.contains(id)) {
+            send(exchange, 404, error("no car #" + id));
+            return;
+        }
+        StringBuilder body = new StringBuilder(192);
+        appendCar(body, id);
+        send(exchange, 200, body.append('}'));
+    }
+
+    private void addCar(HttpExchange exchange) throws IOException {
+        Map<String, String> car = parseObject(readBody(exchange));
+        Cars created = new Cars(required(car, "model"), required(car, "make"),
+                Integer.parseInt(required(car, "mileage")), required(car, "ratePerDay"),
+                required(car, "type"), required(car, "seatingCapacity"));
+        int id = fleet.add(created);
+        sync();
+        send(exchange, 201, new StringBuilder("{\"id\":").append(id).append('}'));
+    }
+
+    private void availability(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int startDay = BookingEngine.parseDay(required(params, "from"));
+        int endDay = BookingEngine.parseDay(required(params, "to"));
+        FleetSearch.Query q = new FleetSearch.Query()
+                .availableBetween(startDay, endDay)
+                .cheapestFirst()
+                .limit(Math.min(MAX_PAGE, Integer.parseInt(params.getOrDefault("limit", "20"))));
+        if (params.containsKey("make")) q.make(params.get("make"));
+        if (params.containsKey("type")) q.type(params.get("type"));
+        if (params.containsKey("seats")) q.seats(Integer.parseInt(params.get("seats")), Integer.MAX_VALUE);
+        if (params.containsKey("maxRate")) q.rate(0, Money.parseCents(params.get("maxRate")));
+
+        AvailabilityCache.Result free = availability.search(q);
+        int[] ids = free.ids;
+        StringBuilder body = new StringBuilder(64 + 192 * ids.length);
+        body.append("{\"count\":").append(ids.length).append(",\"cars\":[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) body.append(',');
+            appendCar(body, ids[i]);
+            body.append(",\"price\":").append(Money.format(free.prices[i])).append('}');
+        }
+        send(exchange, 200, body.append("]}"));
+    }
+
+    private void book(HttpExchange exchange) throws IOException {
+        Map<String, String> request = parseObject(readBody(exchange));
+        int vehicleId = Integer.parseInt(required(request, "vehicleId"));
+        int startDay = BookingEngine.parseDay(required(request, "start"));
+        int endDay = BookingEngine.parseDay(required(request, "end"));
+
+        long reference;
+        try {
+            reference = bookings.book(vehicleId, startDay, endDay);
+        } catch (IllegalStateException e) {
+            send(exchange, 409, error(e.getMessage())); // in maintenance
+            return;
+        }
+        if (reference < 0) {
+            send(exchange, 409, error("car #" + vehicleId + " is already booked for those dates"));
+            return;
+        }
+        sync();
+        StringBuilder body = new StringBuilder(64).append("{\"reference\":");
+        FleetLister.appendJsonString(body, BookingEngine.formatReference(reference));
+        body.append(",\"price\":").append(Money.format(quotes.quote(vehicleId, startDay, endDay))).append('}');
+        send(exchange, 201, body);
+    }
+
+    private void cancel(HttpExchange exchange, long reference) throws IOException {
+        if (!bookings.cancel(reference)) {
+            send(exchange, 404, error("no booking " + BookingEngine.formatReference(reference)));
+            return;
+        }
+        sync();
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+
+    // Make the change durable before answering; a failure becomes a 500 in dispatch
+    private void sync() {
+        if (persistence == null) return;
+        try {
+            persistence.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("change applied but not saved: " + e.getMessage(), e);
+        }
+    }
+
+    // Car fields as an unterminated JSON object, so callers can add fields and close it
+    private void appendCar(StringBuilder sb, int id) {
+        sb.append("{\"id\":").append(id).append(",\"make\":");
+        FleetLister.appendJsonString(sb, fleet.getMake(id));
+        sb.append(",\"model\":");
+        FleetLister.appendJsonString(sb, fleet.getModel(id));
+        sb.append(",\"mileage\":").append(fleet.getMileage(id));
+        sb.append(",\"ratePerDay\":").append(Money.format(fleet.getRateCents(id)));
+        sb.append(",\"type\":");
+        FleetLister.appendJsonString(sb, fleet.getType(id));
+        sb.append(",\"seatingCapacity\":");
+        FleetLister.appendJsonString(sb, fleet.getSeatingCapacity(id));
+        sb.append(",\"state\":\"").append(fleet.getState(id)).append('"');
+    }
+
+    private static StringBuilder error(String message) {
+        StringBuilder sb = new StringBuilder(64).append("{\"error\":");
+        FleetLister.appendJsonString(sb, message == null ? "" : message);
+        return sb.append('}');
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readNBytes(64 * 1024), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String required(Map<String, String> values, String key) {
+        String value = values.get(key);
+        if (value == null) throw new IllegalArgumentException("missing " + key);
+        return value;
+    }
+
+    static Map<String, String> queryParams(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    // Parse a flat JSON object whose values are strings, numbers, booleans or null.
+    // Values come back as their text (strings unescaped); nested objects and arrays are rejected.
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> values = new HashMap<>();
+        int[] pos = {skipSpace(json, 0)};
+        expectChar(json, pos, '{');
+        if (peek(json, pos) == '}') return values;
+        while (true) {
+            String key = parseString(json, pos);
+            expectChar(json, pos, ':');
+            pos[0] = skipSpace(json, pos[0]);
+            String value;
+            if (peek(json, pos) == '"') {
+                value = parseString(json, pos);
+            } else {
+                int start = pos[0];
+                while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+                value = json.substring(start, pos[0]);
+                if (value.isEmpty() || value.charAt(0) == '{' || value.charAt(0) == '[') {
+                    throw new IllegalArgumentException("unsupported JSON value for " + key);
+                }
+                if (value.equals("null")) value = null;
+            }
+            if (value != null) values.put(key, value);
+            char c = peek(json, pos);
+            pos[0]++;
+            if (c == '}') return values;
+            if (c != ',') throw new IllegalArgumentException("malformed JSON at " + (pos[0] - 1));
+        }
+    }
+
+    private static String parseString(String json, int[] pos) {
+        expectChar(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        for (int i = pos[0]; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                pos[0] = i + 1;
+                return sb.toString();
+            }
+            if (c == '\\' && i + 1 < json.length()) {
+                char e = json.charAt(++i);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= json.length()) throw new IllegalArgumentException("malformed JSON escape");
+                        sb.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new IllegalArgumentException("unterminated JSON string");
+    }
+
+    private static void expectChar(String json, int[] pos, char expected) {
+        if (peek(json, pos) != expected) throw new IllegalArgumentException("malformed JSON: expected " + expected);
+        pos[0]++;
+    }
+
+    // Next non-space character (pos is advanced past the spaces), or 0 at the end
+    private static char peek(String json, int[] pos) {
+        pos[0] = skipSpace(json, pos[0]);
+        return pos[0] < json.length() ? json.charAt(pos[0]) : 0;
+    }
+
+    private static int skipSpace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+}
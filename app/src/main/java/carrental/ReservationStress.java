@@ -0,0 +1,140 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReservationStress: hammers BookingEngine from many threads and checks that no
+ * vehicle was ever double-booked.
+ *
+ * Usage: java ReservationStress [vehicles] [tasks] [opsPerTask]   (default 200 2000 500)
+ *
+ * Runs twice, once on a fixed pool of platform threads and once with one virtual
+ * thread per task. Each task books random vehicles/dates (small fleet, short date
+ * window, so there are many collisions) and cancels some of its own bookings while
+ * readers query availability concurrently. Afterwards every surviving booking is
+ * checked against the others on the same vehicle. A final round has every task try
+ * to book the same car for the same dates; exactly one must succeed.
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class ReservationStress {
+    private static final int DAY0 = 20_000; // 2024-10-04, any day works
+
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        boolean ok = true;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        ok &= run("platform threads (" + threads + ")", Executors.newFixedThreadPool(threads), vehicles, tasks, ops);
+        ok &= run("virtual threads", Executors.newVirtualThreadPerTaskExecutor(), vehicles, tasks, ops);
+
+        System.out.println(ok ? "PASSED" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean run(String name, ExecutorService pool, int vehicles, int tasks, int ops)
+            throws InterruptedException {
+        FleetStore fleet = new FleetStore();
+        for (int i = 0; i < vehicles; i++) fleet.add(new Cars("Model" + i, "Make", 0, "40", "Sedan", "5"));
+        BookingEngine engine = new BookingEngine(fleet);
+
+        ConcurrentLinkedQueue<int[]> kept = new ConcurrentLinkedQueue<>(); // {vehicle, start, end}
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+
+        long t0 = System.nanoTime();
+        for (int t = 0; t < tasks; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                List<long[]> mine = new ArrayList<>(); // {reference, start, end}
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    int vehicleId = 1 + rnd.nextInt(vehicles);
+                    int start = DAY0 + rnd.nextInt(365);
+                    int end = start + 1 + rnd.nextInt(10);
+                    int op = rnd.nextInt(10);
+                    if (op < 6) {
+                        long ref = engine.book(vehicleId, start, end);
+                        if (ref < 0) rejected.incrementAndGet();
+                        else mine.add(new long[]{ref, start, end});
+                    } else if (op < 8 && !mine.isEmpty()) {
+                        long[] b = mine.remove(rnd.nextInt(mine.size()));
+                        if (!engine.cancel(b[0])) throw new IllegalStateException("Own booking vanished");
+                    } else {
+                        engine.isFree(vehicleId, start, end);
+                        if (op == 9) engine.freeVehicles(start, end);
+                    }
+                }
+                for (long[] b : mine) {
+                    kept.add(new int[]{BookingEngine.vehicleOf(b[0]), (int) b[1], (int) b[2]});
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+
+        boolean ok = verify(kept, engine, vehicles);
+        ok &= sameSlotRace(engine, tasks);
+
+        System.out.println(name + ": " + (long) tasks * ops + " ops in " + millis + " ms, "
+                + kept.size() + " bookings kept, " + rejected.get() + " rejected as overlapping -> "
+                + (ok ? "no double-booking" : "DOUBLE-BOOKING DETECTED"));
+        return ok;
+    }
+
+    // Every kept booking must be disjoint from the others on its vehicle and match the engine's count
+    private static boolean verify(ConcurrentLinkedQueue<int[]> kept, BookingEngine engine, int vehicles) {
+        List<List<int[]>> perVehicle = new ArrayList<>();
+        for (int i = 0; i <= vehicles; i++) perVehicle.add(new ArrayList<>());
+        for (int[] b : kept) perVehicle.get(b[0]).add(b);
+
+        boolean ok = kept.size() == engine.size();
+        for (List<int[]> list : perVehicle) {
+            int[][] sorted = list.toArray(new int[0][]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a[1], b[1]));
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i][1] < sorted[i - 1][2]) ok = false;
+            }
+        }
+        return ok;
+    }
+
+    // Every task books vehicle 1 for the same (otherwise empty) week: exactly one may win
+    private static boolean sameSlotRace(BookingEngine engine, int tasks) throws InterruptedException {
+        int start = DAY0 + 1000;
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+        for (int t = 0; t < tasks; t++) {
+            pool.execute(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (engine.book(1, start, start + 7) >= 0) winners.incrementAndGet();
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return winners.get() == 1;
+    }
+}
@@ -0,0 +1,250 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * RunningAggregates: live totals for dashboards, updated on every booking change.
+ *
+ * Keeps, for all bookings currently held: count and total days (so the average rental
+ * length), cars and booked days per make and per type, and per calendar day the
+ * revenue earned and the number of cars on rent. Each booking or cancellation adds or
+ * subtracts its contribution (O(days of the booking)), so reading the view never
+ * rescans the booking history.
+ *
+ * Per-day figures cover the days BookingEngine accepts, [MIN_DAY, MAX_DAY), in arrays
+ * allocated once; days outside that horizon (only possible in old recovered data) are
+ * not counted.
+ *
+ * Revenue is spread over a booking's days exactly as in FleetAnalytics, so for any
+ * period the two agree.
+ *
+ * Booking changes arrive inside BookingEngine's stripe locks, so they share a read
+ * lock and update atomic counters: bookings on different stripes do not wait for each
+ * other here. A new car (which may grow the per-make and per-type arrays) takes the
+ * write lock. appendJson copies the figures under the read lock and formats them after
+ * releasing it, so it never stalls bookings; a booking landing during the copy may be
+ * counted in some figures of that view and not yet in others.
+ *
+ * Create it after recovery and before bookings start changing: the constructor seeds
+ * the totals from a scan of the current schedules and then follows the listener calls.
+ */
+public class RunningAggregates implements RentalListener {
+    private static final int DAYS = BookingEngine.MAX_DAY - BookingEngine.MIN_DAY;
+
+    private final FleetStore fleet;
+    private final QuoteEngine quotes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong bookingCount = new AtomicLong();
+    private final AtomicLong bookedDays = new AtomicLong();
+    // Replaced (grown) only under the write lock; cars* change only under it
+    private long[] carsByMake = new long[8];
+    private AtomicLongArray daysByMake = new AtomicLongArray(8);
+    private long[] carsByType = new long[8];
+    private AtomicLongArray daysByType = new AtomicLongArray(8);
+
+    // Per-day figures, indexed by day - MIN_DAY
+    private final AtomicLongArray dayRevenueUnits = new AtomicLongArray(DAYS);  // cents x 10000
+    private final AtomicIntegerArray dayCarsOnRent = new AtomicIntegerArray(DAYS);
+
+    public RunningAggregates(FleetStore fleet, BookingEngine bookings, QuoteEngine quotes) {
+        this.fleet = fleet;
+        this.quotes = quotes;
+        fleet.addListenerWithBackfill(this);
+        lock.writeLock().lock();
+        try {
+            for (int id = 1; id <= fleet.size(); id++) {
+                IntervalSchedule schedule = bookings.schedule(id);
+                if (schedule == null) continue;
+                for (int i = 0; i < schedule.size(); i++) apply(id, schedule.startAt(i), schedule.endAt(i), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        bookings.addListener(this);
+    }
+
+    @Override
+    public void carAdded(int vehicleId, Cars car) {
+        int make = fleet.makeCode(vehicleId);
+        int type = fleet.typeCode(vehicleId);
+        lock.writeLock().lock();
+        try {
+            ensureCodes(make, type);
+            carsByMake[make]++;
+            carsByType[type]++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void booked(long reference, int startDay, int endDay) {
+        change(BookingEngine.vehicleOf(reference), startDay, endDay, 1);
+    }
+
+    @Override
+    public void cancelled(long reference, int startDay, int endDay) {
+        change(BookingEngine.vehicleOf(reference), startDay, endDay, -1);
+    }
+
+    private void change(int vehicleId, int startDay, int endDay, int sign) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            if (apply(vehicleId, startDay, endDay, sign)) return;
+        } finally {
+            read.unlock();
+        }
+        // The car's make or type is newer than the arrays (its carAdded has not run yet)
+        lock.writeLock().lock();
+        try {
+            ensureCodes(fleet.makeCode(vehicleId), fleet.typeCode(vehicleId));
+            apply(vehicleId, startDay, endDay, sign);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add (sign 1) or remove (sign -1) one booking's contribution. Called under either
+    // lock; returns false, changing nothing, if the make/type arrays must grow first.
+    private boolean apply(int vehicleId, int startDay, int endDay, int sign) {
+        int make = fleet.makeCode(vehicleId);
+        int type = fleet.typeCode(vehicleId);
+        if (make >= daysByMake.length() || type >= daysByType.length()) return false;
+        int days = endDay - startDay;
+        bookingCount.addAndGet(sign);
+        bookedDays.addAndGet(sign * (long) days);
+        daysByMake.addAndGet(make, sign * (long) days);
+        daysByType.addAndGet(type, sign * (long) days);
+
+        long rate = fleet.getRateCents(vehicleId);
+        int from = Math.max(startDay, BookingEngine.MIN_DAY);
+        int to = Math.min(endDay, BookingEngine.MAX_DAY);
+        for (int day = from; day < to; day++) {
+            dayRevenueUnits.addAndGet(day - BookingEngine.MIN_DAY, sign * rate * quotes.dayUnits(day, days));
+            dayCarsOnRent.addAndGet(day - BookingEngine.MIN_DAY, sign);
+        }
+        return true;
+    }
+
+    // Write lock held
+    private void ensureCodes(int make, int type) {
+        if (make >= carsByMake.length) {
+            int n = Math.max(make + 1, carsByMake.length * 2);
+            carsByMake = Arrays.copyOf(carsByMake, n);
+            daysByMake = grow(daysByMake, n);
+        }
+        if (type >= carsByType.length) {
+            int n = Math.max(type + 1, carsByType.length * 2);
+            carsByType = Arrays.copyOf(carsByType, n);
+            daysByType = grow(daysByType, n);
+        }
+    }
+
+    private static AtomicLongArray grow(AtomicLongArray array, int length) {
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < array.length(); i++) grown.set(i, array.get(i));
+        return grown;
+    }
+
+    public long bookingCount() {
+        return bookingCount.get();
+    }
+
+    public double averageRentalDays() {
+        long count = bookingCount.get();
+        return count == 0 ? 0 : (double) bookedDays.get() / count;
+    }
+
+    public long revenueCents(int day) {
+        if (day < BookingEngine.MIN_DAY || day >= BookingEngine.MAX_DAY) return 0;
+        return (dayRevenueUnits.get(day - BookingEngine.MIN_DAY) + 5_000) / 10_000;
+    }
+
+    public int carsOnRent(int day) {
+        if (day < BookingEngine.MIN_DAY || day >= BookingEngine.MAX_DAY) return 0;
+        return dayCarsOnRent.get(day - BookingEngine.MIN_DAY);
+    }
+
+    // Fraction of the fleet on rent that day
+    public double utilization(int day) {
+        int cars = fleet.size();
+        return cars == 0 ? 0 : (double) carsOnRent(day) / cars;
+    }
+
+    // {"bookings":..,"averageRentalDays":..,"byMake":{..},"byType":{..},"days":{"<date>":{"revenue":..,"onRent":..,"utilization":..}}}
+    // with per-day figures for [fromDay, toDay)
+    public void appendJson(StringBuilder sb, int fromDay, int toDay) {
+        FleetAnalytics.checkPeriod(fromDay, toDay);
+        // Copy the figures under the read lock (bookings keep flowing; one landing mid-copy
+        // may show in some figures and not others) and format after releasing it
+        long count;
+        long days;
+        long[] makeCars;
+        long[] makeDays;
+        long[] typeCars;
+        long[] typeDays;
+        long[] revenue = new long[toDay - fromDay];
+        int[] onRent = new int[toDay - fromDay];
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            count = bookingCount.get();
+            days = bookedDays.get();
+            makeCars = carsByMake.clone();
+            makeDays = copy(daysByMake);
+            typeCars = carsByType.clone();
+            typeDays = copy(daysByType);
+            for (int day = fromDay; day < toDay; day++) {
+                revenue[day - fromDay] = revenueCents(day);
+                onRent[day - fromDay] = carsOnRent(day);
+            }
+        } finally {
+            read.unlock();
+        }
+
+        sb.append("{\"bookings\":").append(count)
+                .append(",\"averageRentalDays\":")
+                .append(String.format(Locale.ROOT, "%.2f", count == 0 ? 0.0 : (double) days / count))
+                .append(",\"byMake\":{");
+        appendGroups(sb, fleet.makes(), makeCars, makeDays);
+        sb.append("},\"byType\":{");
+        appendGroups(sb, fleet.types(), typeCars, typeDays);
+        sb.append("},\"days\":{");
+        int cars = fleet.size();
+        for (int day = fromDay; day < toDay; day++) {
+            if (day > fromDay) sb.append(',');
+            int rented = onRent[day - fromDay];
+            sb.append('"').append(BookingEngine.formatDay(day)).append("\":{\"revenue\":")
+                    .append(Money.format(revenue[day - fromDay])).append(",\"onRent\":").append(rented)
+                    .append(",\"utilization\":")
+                    .append(String.format(Locale.ROOT, "%.4f", cars == 0 ? 0.0 : (double) rented / cars)).append('}');
+        }
+        sb.append("}}");
+    }
+
+    private static long[] copy(AtomicLongArray array) {
+        long[] copy = new long[array.length()];
+        for (int i = 0; i < copy.length; i++) copy[i] = array.get(i);
+        return copy;
+    }
+
+    private static void appendGroups(StringBuilder sb, StringDictionary names, long[] cars, long[] days) {
+        boolean first = true;
+        for (int i = 0; i < cars.length && i < names.size(); i++) {
+            if (cars[i] == 0) continue;
+            if (!first) sb.append(',');
+            first = false;
+            FleetLister.appendJsonString(sb, names.decode(i));
+            sb.append(":{\"cars\":").append(cars[i]).append(",\"bookedDays\":").append(days[i]).append('}');
+        }
+    }
+}
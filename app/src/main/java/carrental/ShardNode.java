@@ -0,0 +1,111 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * ShardNode: one shard of a ShardRouter's fleet, running in-process.
+ *
+ * A node owns a complete, independent set of engines (FleetStore, BookingEngine,
+ * QuoteEngine, FleetSearch) for the vehicles of the branches it hosts, plus the
+ * mapping from its local vehicle ids to the router's global ids. Nothing is shared
+ * with other nodes, so a node could be moved into its own process unchanged.
+ *
+ * Each node has its own worker thread; call() runs work there, which is how the
+ * router fans a search out to all nodes at once. The engines are thread-safe, so
+ * single-vehicle operations may also be made directly.
+ */
+public class ShardNode implements AutoCloseable {
+    final String name;
+    final FleetStore fleet = new FleetStore();
+    final BookingEngine bookings = new BookingEngine(fleet);
+    final QuoteEngine quotes = new QuoteEngine(fleet);
+    final FleetSearch search = new FleetSearch(fleet, bookings);
+
+    private final ExecutorService worker;
+    private int[] globalIds = new int[16];  // by local id; guarded by this
+
+    ShardNode(String name) {
+        this.name = name;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "shard-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int size() {
+        return fleet.size();
+    }
+
+    <T> CompletableFuture<T> call(Function<ShardNode, T> work) {
+        return CompletableFuture.supplyAsync(() -> work.apply(this), worker);
+    }
+
+    // Add a car known to the router as globalId; returns its local id
+    synchronized int add(int globalId, Cars car) {
+        int local = fleet.add(car);
+        if (local >= globalIds.length) globalIds = Arrays.copyOf(globalIds, Math.max(local + 1, globalIds.length * 2));
+        globalIds[local] = globalId;
+        return local;
+    }
+
+    synchronized int globalId(int local) {
+        return globalIds[local];
+    }
+
+    // Copy vehicle `local` of `from` (car, bookings with their sequence numbers, odometer
+    // history, lifecycle state) into this node; returns its new local id
+    int adopt(ShardNode from, int local) {
+        int id = add(from.globalId(local), from.fleet.get(local));
+        OdometerLog odometer = from.fleet.odometer();
+        if (odometer.readings(local) > 0) fleet.restoreOdometer(id, odometer.baseKm(local), odometer.history(local));
+        fleet.restoreState(id, from.fleet.getState(local));
+        IntervalSchedule schedule = from.bookings.schedule(local);
+        if (schedule != null) {
+            for (int i = 0; i < schedule.size(); i++) {
+                bookings.restore(BookingEngine.reference(id, schedule.seqAt(i)), schedule.startAt(i), schedule.endAt(i));
+            }
+        }
+        return id;
+    }
+
+    // One shard's matches in the router's merge order: global ids, with their rates for
+    // cheapest-first queries (all 0 otherwise). Rate and id stay separate fields, so the
+    // merge compares them one after the other and no rate can overflow into the id.
+    static final class Hits {
+        final int[] ids;
+        final long[] rates;
+
+        Hits(int[] ids, long[] rates) {
+            this.ids = ids;
+            this.rates = rates;
+        }
+    }
+
+    // Matching vehicles, by price then global id or by global id. Local ids follow global
+    // id order (see ShardRouter), so FleetSearch's own order and limit already match the
+    // router's.
+    Hits search(FleetSearch.Query q) {
+        int[] ids = search.search(q);
+        int[] global = new int[ids.length];
+        long[] rates = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            global[i] = globalId(ids[i]);
+            if (q.cheapestFirst) rates[i] = fleet.getRateCents(ids[i]);
+        }
+        return new Hits(global, rates);
+    }
+
+    @Override
+    public void close() {
+        worker.shutdown();
+    }
+}
@@ -0,0 +1,304 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ShardRouter: a fleet partitioned by branch over several ShardNodes.
+ *
+ * Every vehicle belongs to a branch, and a ConsistentHashRing maps each branch to a
+ * shard, so all of a branch's cars and bookings live on one node. The router keeps a
+ * directory of global vehicle ids (branch, shard, local id on that shard):
+ * - single-vehicle operations (get, book, cancel, isFree, quote) go straight to the
+ *   owning shard;
+ * - searches fan out to every shard in parallel, each on its node's own thread, and
+ *   the per-shard results are merged into one list in the same order an unsharded
+ *   FleetSearch would produce (by price then id, or by id).
+ *
+ * On every shard, local ids are in the same order as global ids: new cars get the next
+ * global id and are appended, a rebalance only adds vehicles to the new shard (in id
+ * order), and compaction keeps the order. So each shard's search results, limit
+ * included, are already the shard's share of the global answer.
+ *
+ * Booking references carry the global vehicle id and the booking's sequence number
+ * on its shard, so they stay valid when a vehicle moves.
+ *
+ * addShard() rebalances: only the branches the new shard takes over on the ring move,
+ * about 1/n of the fleet. A moving vehicle is copied with its bookings (same sequence
+ * numbers) and odometer history; the shards that gave vehicles away then compact their
+ * stores, which renumbers local ids but changes nothing visible through the router.
+ *
+ * Operations hold a read lock; adding a car or a shard takes the write lock.
+ */
+public class ShardRouter implements AutoCloseable {
+    private final ConsistentHashRing ring = new ConsistentHashRing();
+    private final List<ShardNode> nodes = new ArrayList<>();
+    private final StringDictionary branches = new StringDictionary();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Directory by global vehicle id (1-based)
+    private int[] branchOf = new int[16];
+    private int[] shardOf = new int[16];
+    private int[] localId = new int[16];
+    private int size;
+
+    public ShardRouter(String... shardNames) {
+        for (String name : shardNames) addShard(name);
+    }
+
+    // What a rebalance did
+    public static final class Rebalance {
+        public final int vehiclesMoved;
+        public final int bookingsMoved;
+        public final int fleetSize;
+
+        Rebalance(int vehiclesMoved, int bookingsMoved, int fleetSize) {
+            this.vehiclesMoved = vehiclesMoved;
+            this.bookingsMoved = bookingsMoved;
+            this.fleetSize = fleetSize;
+        }
+
+        @Override
+        public String toString() {
+            return "moved " + vehiclesMoved + " of " + fleetSize + " vehicles and " + bookingsMoved + " bookings";
+        }
+    }
+
+    public Rebalance addShard(String name) {
+        lock.writeLock().lock();
+        try {
+            for (ShardNode node : nodes) {
+                if (node.name.equals(name)) throw new IllegalArgumentException("Shard " + name + " already exists");
+            }
+            int shard = nodes.size();
+            ShardNode added = new ShardNode(name);
+            nodes.add(added);
+            ring.addShard(shard, name);
+
+            // New owner of each branch; only branches whose owner changed move
+            int[] owner = new int[branches.size()];
+            for (int b = 0; b < owner.length; b++) owner[b] = ring.shardFor(branches.decode(b));
+
+            boolean[] gaveAway = new boolean[nodes.size()];
+            int moved = 0;
+            int bookingsMoved = 0;
+            for (int id = 1; id <= size; id++) {
+                int to = owner[branchOf[id]];
+                if (to == shardOf[id]) continue;
+                ShardNode from = nodes.get(shardOf[id]);
+                IntervalSchedule schedule = from.bookings.schedule(localId[id]);
+                bookingsMoved += schedule == null ? 0 : schedule.size();
+                localId[id] = nodes.get(to).adopt(from, localId[id]);
+                gaveAway[shardOf[id]] = true;
+                shardOf[id] = to;
+                moved++;
+            }
+            for (int s = 0; s < gaveAway.length; s++) {
+                if (gaveAway[s]) compact(s);
+            }
+            return new Rebalance(moved, bookingsMoved, size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rebuild shard s with only the vehicles it still owns, in their existing (global id) order
+    private void compact(int s) {
+        ShardNode old = nodes.get(s);
+        ShardNode fresh = new ShardNode(old.name);
+        int[] byLocal = new int[old.size() + 1];
+        for (int id = 1; id <= size; id++) {
+            if (shardOf[id] == s) byLocal[localId[id]] = id;
+        }
+        for (int local = 1; local < byLocal.length; local++) {
+            int id = byLocal[local];
+            if (id != 0) localId[id] = fresh.adopt(old, local);
+        }
+        // Keep sequence numbers of cancelled or moved bookings from being reused
+        fresh.bookings.restoreNextSeq(old.bookings.nextSeq());
+        nodes.set(s, fresh);
+        old.close();
+    }
+
+    // Add a car to branch; returns its global vehicle id
+    public int addCar(String branch, Cars car) {
+        lock.writeLock().lock();
+        try {
+            int id = size + 1;
+            if (id >= branchOf.length) {
+                int capacity = branchOf.length * 2;
+                branchOf = Arrays.copyOf(branchOf, capacity);
+                shardOf = Arrays.copyOf(shardOf, capacity);
+                localId = Arrays.copyOf(localId, capacity);
+            }
+            int shard = ring.shardFor(branch);
+            localId[id] = nodes.get(shard).add(id, car);
+            branchOf[id] = branches.encode(branch);
+            shardOf[id] = shard;
+            size = id;
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int shardCount() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Vehicles per shard, in the order the shards were added
+    public int[] shardSizes() {
+        lock.readLock().lock();
+        try {
+            int[] sizes = new int[nodes.size()];
+            for (int s = 0; s < sizes.length; s++) sizes[s] = nodes.get(s).size();
+            return sizes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String branchOf(int id) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            return branches.decode(branchOf[id]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String shardOf(int id) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            return nodes.get(shardOf[id]).name;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Cars get(int id) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            return nodes.get(shardOf[id]).fleet.get(localId[id]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the booking reference (global vehicle id, sequence number), or -1 on a conflict
+    public long book(int id, int startDay, int endDay) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            long reference = nodes.get(shardOf[id]).bookings.book(localId[id], startDay, endDay);
+            return reference < 0 ? -1 : BookingEngine.reference(id, BookingEngine.seqOf(reference));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean cancel(long reference) {
+        lock.readLock().lock();
+        try {
+            int id = BookingEngine.vehicleOf(reference);
+            if (id < 1 || id > size) return false;
+            return nodes.get(shardOf[id]).bookings.cancel(
+                    BookingEngine.reference(localId[id], BookingEngine.seqOf(reference)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isFree(int id, int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            return nodes.get(shardOf[id]).bookings.isFree(localId[id], fromDay, toDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long quote(int id, int startDay, int endDay) {
+        lock.readLock().lock();
+        try {
+            checkId(id);
+            return nodes.get(shardOf[id]).quotes.quote(localId[id], startDay, endDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Global ids of the matching vehicles, ordered as FleetSearch orders them
+    public int[] search(FleetSearch.Query q) {
+        lock.readLock().lock();
+        try {
+            List<CompletableFuture<ShardNode.Hits>> parts = new ArrayList<>(nodes.size());
+            for (ShardNode node : nodes) parts.add(node.call(n -> n.search(q)));
+
+            int total = 0;
+            ShardNode.Hits[] results = new ShardNode.Hits[parts.size()];
+            for (int s = 0; s < results.length; s++) {
+                results[s] = parts.get(s).join();
+                total += results[s].ids.length;
+            }
+            return merge(results, Math.min(total, q.limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // k-way merge of lists sorted by (rate, global id), keeping the first `count`
+    private static int[] merge(ShardNode.Hits[] results, int count) {
+        int[] ids = new int[count];
+        int[] next = new int[results.length];
+        for (int i = 0; i < count; i++) {
+            int best = -1;
+            for (int s = 0; s < results.length; s++) {
+                if (next[s] < results[s].ids.length && (best < 0 || before(results[s], next[s], results[best], next[best]))) {
+                    best = s;
+                }
+            }
+            ids[i] = results[best].ids[next[best]++];
+        }
+        return ids;
+    }
+
+    private static boolean before(ShardNode.Hits a, int i, ShardNode.Hits b, int j) {
+        return a.rates[i] < b.rates[j] || (a.rates[i] == b.rates[j] && a.ids[i] < b.ids[j]);
+    }
+
+    private void checkId(int id) {
+        if (id < 1 || id > size) throw new IllegalArgumentException("No vehicle with id " + id);
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (ShardNode node : nodes) node.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
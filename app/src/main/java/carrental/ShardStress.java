@@ -0,0 +1,130 @@
+package carrental;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ShardStress: checks a ShardRouter against a single unsharded fleet, before and
+ * after adding a shard.
+ *
+ * Usage: java ShardStress [vehicles] [branches] [shards]   (default 50000 40 3)
+ *
+ * The same cars and bookings go into both; random searches (filters, date ranges,
+ * both orders, with and without a limit) must return identical ids, and routed
+ * single-vehicle answers must agree. Then one more shard is added: it reports how
+ * many vehicles moved (consistent hashing should move about 1/(shards + 1) of them),
+ * re-checks everything, and cancels bookings made before the move by their original
+ * references.
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class ShardStress {
+    private static final int DAY0 = 20_000;
+    private static final String[] MAKES = {"Toyota", "Ford", "Kia", "BMW", "Tesla", "Honda"};
+    private static final String[] TYPES = {"Compact", "Sedan", "SUV", "Van"};
+
+    public static void main(String[] args) {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int branchCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        String[] names = new String[shards];
+        for (int s = 0; s < shards; s++) names[s] = "node" + (s + 1);
+        Random random = new Random(42);
+        FleetStore fleet = new FleetStore();
+        BookingEngine bookings = new BookingEngine(fleet);
+        FleetSearch search = new FleetSearch(fleet, bookings);
+
+        boolean ok = true;
+        try (ShardRouter router = new ShardRouter(names)) {
+            long started = System.nanoTime();
+            for (int i = 0; i < vehicles; i++) {
+                // One car in 50 is priced above 2^31 cents, past what fits beside an id in a long
+                long rate = (random.nextInt(50) == 0 ? 1L << 31 : 2_000) + 100L * random.nextInt(80);
+                Cars car = new Cars("M" + random.nextInt(50), MAKES[random.nextInt(MAKES.length)],
+                        random.nextInt(100_000), rate,
+                        TYPES[random.nextInt(TYPES.length)], (2 + random.nextInt(6)) + " seats");
+                String branch = "branch-" + random.nextInt(branchCount);
+                if (router.addCar(branch, car) != fleet.add(car)) throw new IllegalStateException("Ids diverged");
+            }
+            List<long[]> references = new ArrayList<>();  // (routed, unsharded)
+            for (int i = 0; i < vehicles; i++) {
+                int id = 1 + random.nextInt(vehicles);
+                int start = DAY0 + random.nextInt(60);
+                int end = start + 1 + random.nextInt(10);
+                long routed = router.book(id, start, end);
+                long direct = bookings.book(id, start, end);
+                if ((routed < 0) != (direct < 0)) ok = fail("book " + id + " disagrees");
+                if (routed >= 0 && direct >= 0) references.add(new long[]{routed, direct});
+            }
+            System.out.printf("Loaded %d vehicles in %d branches on %d shards %s in %d ms%n", vehicles, branchCount,
+                    shards, Arrays.toString(router.shardSizes()), (System.nanoTime() - started) / 1_000_000);
+
+            ok &= compare(router, search, bookings, random, vehicles);
+
+            started = System.nanoTime();
+            ShardRouter.Rebalance r = router.addShard("node" + (shards + 1));
+            System.out.printf("Added a shard: %s (%.1f%%, ideal %.1f%%) in %d ms, shards now %s%n", r,
+                    100.0 * r.vehiclesMoved / vehicles, 100.0 / (shards + 1),
+                    (System.nanoTime() - started) / 1_000_000, Arrays.toString(router.shardSizes()));
+
+            ok &= compare(router, search, bookings, random, vehicles);
+
+            // Old references still cancel the right booking after the move
+            int cancelled = 0;
+            for (int i = 0; i < references.size(); i += 7) {
+                long reference = references.get(i)[0];
+                boolean expected = bookings.cancel(references.get(i)[1]);
+                if (router.cancel(reference) != expected) ok = fail("cancel " + BookingEngine.formatReference(reference));
+                else cancelled++;
+            }
+            System.out.println("Cancelled " + cancelled + " bookings by pre-move references");
+            ok &= compare(router, search, bookings, random, vehicles);
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean compare(ShardRouter router, FleetSearch search, BookingEngine bookings, Random random,
+                                   int vehicles) {
+        boolean ok = true;
+        long routedNanos = 0;
+        long directNanos = 0;
+        for (int i = 0; i < 2_000; i++) {
+            FleetSearch.Query q = new FleetSearch.Query();
+            if (random.nextInt(3) == 0) q.make(MAKES[random.nextInt(MAKES.length)]);
+            if (random.nextInt(2) == 0) q.type(TYPES[random.nextInt(TYPES.length)]);
+            if (random.nextInt(3) == 0) q.seats(4, 5 + random.nextInt(3));
+            if (random.nextInt(2) == 0) {
+                int from = DAY0 + random.nextInt(60);
+                q.availableBetween(from, from + 1 + random.nextInt(7));
+            }
+            if (random.nextBoolean()) q.cheapestFirst();
+            if (random.nextInt(4) > 0) q.limit(1 + random.nextInt(50));
+
+            long t0 = System.nanoTime();
+            int[] routed = router.search(q);
+            long t1 = System.nanoTime();
+            int[] direct = search.search(q);
+            routedNanos += t1 - t0;
+            directNanos += System.nanoTime() - t1;
+            if (!Arrays.equals(routed, direct)) {
+                ok = fail("search " + i + ": " + routed.length + " vs " + direct.length + " results");
+            }
+
+            int id = 1 + random.nextInt(vehicles);
+            int from = DAY0 + random.nextInt(60);
+            if (router.isFree(id, from, from + 3) != bookings.isFree(id, from, from + 3)) ok = fail("isFree " + id);
+        }
+        System.out.printf("  2000 searches: routed %.1f us, unsharded %.1f us per search%n",
+                routedNanos / 2_000 / 1e3, directNanos / 2_000 / 1e3);
+        return ok;
+    }
+
+    private static boolean fail(String message) {
+        System.out.println("  MISMATCH " + message);
+        return false;
+    }
+}
@@ -0,0 +1,217 @@
+package carrental;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot: compact binary image of the fleet and all live bookings.
+ *
+ * Layout (big-endian):
+ *   magic "RSNP", version, log generation to replay from, next booking seq,
+ *   vehicle count, then per vehicle: make, model, type, seats, mileage, rate;
+ *   then per booked vehicle: id, booking count, (start, end, seq) per booking, and 0;
+ *   then per vehicle with odometer readings: id, baseline km, byte count, the
+ *   OdometerLog encoding as is, and 0 (version 2; version 1 files end before this);
+ *   then per vehicle not AVAILABLE: id, state ordinal, and 0 (version 3);
+ *   finally a CRC32 of everything before it.
+ *
+ * Strings are written through a table local to the file: the first occurrence is
+ * written in full, later ones as a 4-byte code, so a large fleet costs a few bytes
+ * per vehicle. Loading memory-maps the file and decodes straight from the mapping.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x52534E50; // "RSNP"
+    private static final int VERSION = 3;
+
+    public static final String FILE_NAME = "snapshot.bin";
+
+    // State captured at a log cut. Cheap to take: schedules are immutable, so only
+    // references are copied; the fleet is append-only, so only its size is kept.
+    public static final class Cut {
+        final long generation;
+        final int nextSeq;
+        final int fleetSize;
+        final int[] mileage;
+        final byte[] states;
+        final IntervalSchedule[] schedules;
+        final OdometerLog.Cut odometer;
+
+        public Cut(long generation, FleetStore fleet, BookingEngine bookings) {
+            this.generation = generation;
+            this.nextSeq = bookings.nextSeq();
+            this.fleetSize = fleet.size();
+            this.mileage = new int[fleetSize + 1];
+            this.states = new byte[fleetSize + 1];
+            this.schedules = new IntervalSchedule[fleetSize + 1];
+            for (int id = 1; id <= fleetSize; id++) {
+                mileage[id] = fleet.getMileage(id);
+                states[id] = (byte) fleet.getState(id).ordinal();
+                schedules[id] = bookings.schedule(id);
+            }
+            this.odometer = fleet.odometer().cut(fleetSize);
+        }
+    }
+
+    private Snapshot() {}
+
+    // Write cut to dir/snapshot.bin atomically (temp file, fsync, rename)
+    public static void write(Path dir, Cut cut, FleetStore fleet) throws IOException {
+        Path tmp = dir.resolve(FILE_NAME + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(cut.generation);
+            out.writeInt(cut.nextSeq);
+            out.writeInt(cut.fleetSize);
+
+            HashMap<String, Integer> table = new HashMap<>();
+            for (int id = 1; id <= cut.fleetSize; id++) {
+                writeString(out, table, fleet.getMake(id));
+                writeString(out, table, fleet.getModel(id));
+                writeString(out, table, fleet.getType(id));
+                writeString(out, table, fleet.getSeatingCapacity(id));
+                out.writeInt(cut.mileage[id]);
+                out.writeLong(fleet.getRateCents(id));
+            }
+
+            for (int id = 1; id <= cut.fleetSize; id++) {
+                IntervalSchedule s = cut.schedules[id];
+                if (s == null || s.size() == 0) continue;
+                out.writeInt(id);
+                out.writeInt(s.size());
+                for (int i = 0; i < s.size(); i++) {
+                    out.writeInt(s.startAt(i));
+                    out.writeInt(s.endAt(i));
+                    out.writeInt(s.seqAt(i));
+                }
+            }
+            out.writeInt(0);
+
+            OdometerLog.Cut odometer = cut.odometer;
+            for (int id = 1; id <= cut.fleetSize; id++) {
+                if (odometer.length[id] == 0) continue;
+                out.writeInt(id);
+                out.writeInt(odometer.baseKm[id]);
+                out.writeInt(odometer.length[id]);
+                out.write(odometer.data[id], 0, odometer.length[id]);
+            }
+            out.writeInt(0);
+
+            for (int id = 1; id <= cut.fleetSize; id++) {
+                if (cut.states[id] == VehicleState.AVAILABLE.ordinal()) continue;
+                out.writeInt(id);
+                out.writeByte(cut.states[id]);
+            }
+            out.writeInt(0);
+            out.flush();
+            // The checksum covers everything above; write it past the CheckedOutputStream
+            file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Load dir/snapshot.bin into an empty fleet and booking engine.
+    // Returns the log generation to replay from, or 1 if there is no snapshot.
+    public static long load(Path dir, FleetStore fleet, BookingEngine bookings) throws IOException {
+        Path file = dir.resolve(FILE_NAME);
+        if (!Files.exists(file)) return 1;
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + file);
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+
+            int bodyLength = in.limit() - 4;
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate().limit(bodyLength));
+            if (bodyLength < 24 || in.getInt(bodyLength) != (int) crc.getValue()) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            if (in.getInt() != MAGIC) throw new IOException("Not a snapshot: " + file);
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported snapshot version " + version);
+
+            long generation = in.getLong();
+            int nextSeq = in.getInt();
+            int fleetSize = in.getInt();
+
+            List<String> table = new ArrayList<>();
+            for (int id = 1; id <= fleetSize; id++) {
+                String make = readString(in, table);
+                String model = readString(in, table);
+                String type = readString(in, table);
+                String seats = readString(in, table);
+                int mileage = in.getInt();
+                long rate = in.getLong();
+                fleet.restore(new Cars(model, make, mileage, rate, type, seats));
+            }
+
+            for (int id = in.getInt(); id != 0; id = in.getInt()) {
+                int count = in.getInt();
+                for (int i = 0; i < count; i++) {
+                    int start = in.getInt();
+                    int end = in.getInt();
+                    int seq = in.getInt();
+                    bookings.restore(BookingEngine.reference(id, seq), start, end);
+                }
+            }
+            if (version >= 2) {
+                for (int id = in.getInt(); id != 0; id = in.getInt()) {
+                    int baseKm = in.getInt();
+                    byte[] encoded = new byte[in.getInt()];
+                    in.get(encoded);
+                    fleet.restoreOdometer(id, baseKm, encoded);
+                }
+            }
+            if (version >= 3) {
+                for (int id = in.getInt(); id != 0; id = in.getInt()) fleet.restoreState(id, VehicleState.of(in.get()));
+            }
+            // Keep sequence numbers of cancelled bookings from being handed out again
+            if (nextSeq > 1) bookings.restoreNextSeq(nextSeq);
+            return generation;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, HashMap<String, Integer> table, String s)
+            throws IOException {
+        Integer code = table.get(s);
+        if (code != null) {
+            out.writeInt(code);
+            return;
+        }
+        table.put(s, table.size());
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(-1 - bytes.length); // negative: a new string of that many bytes follows
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in, List<String> table) {
+        int code = in.getInt();
+        if (code >= 0) return table.get(code);
+
+        byte[] bytes = new byte[-1 - code];
+        in.get(bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        table.add(s);
+        return s;
+    }
+}
@@ -0,0 +1,46 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * StringDictionary: maps repeated strings (makes, models, car types) to small int codes.
+ *
+ * A fleet of hundreds of thousands of cars only has a few hundred distinct makes
+ * and models, so each distinct string is stored once and every vehicle keeps just
+ * the 4-byte code. Codes are dense and start at 0, so they can index arrays directly.
+ *
+ * encode() must be called by one thread at a time (FleetStore holds its lock);
+ * lookup() and decode() of codes already handed out are safe from any thread.
+ */
+public class StringDictionary {
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private String[] values = new String[16];
+    private int size = 0;
+
+    // Return the code for value, adding it to the dictionary the first time it is seen
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) return code;
+
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    // Return the code for value, or -1 if it was never encoded (does not add it)
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    // Number of distinct strings stored
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,73 @@
+package carrental;
+
+public abstract class Vehicle {
+        protected String Model;
+        protected String Make;
+        protected int Millege;
+        // Rate is parsed once into cents so pricing never re-parses text
+        protected long rateCents;
+
+        // Throws IllegalArgumentException if ratePerDay is not a valid amount
+        public Vehicle(String model, String make, int millege, String ratePerDay){
+            this(model, make, millege, Money.parseCents(ratePerDay));
+        }
+
+        public Vehicle(String model, String make, int millege, long rateCents){
+            this.Model = model;
+            this.Make = make;
+            this.Millege = millege;
+            this.rateCents = rateCents;
+        }
+
+        public String getModel() {
+                return Model;
+        }
+        public void setModel(String model) {
+                Model = model;
+        }
+        public String getMake() {
+                return Make;
+        }
+        public void setMake(String make) {
+                Make = make;
+        }
+        public int getMillege() {
+                return Millege;
+        }
+        public void setMillege(int millege) {
+                Millege = millege;
+        }
+        public String getRatePerDay() {
+                return Money.format(rateCents);
+        }
+        public void setRatePerDay(String ratePerDay) {
+                this.rateCents = Money.parseCents(ratePerDay);
+        }
+        public long getRateCents() {
+                return rateCents;
+        }
+        public void setRateCents(long rateCents) {
+                this.rateCents = rateCents;
+        }
+        
+        // Render into one buffer and print it with a single call
+        public void displayDetails(){
+            StringBuilder sb = new StringBuilder(96);
+            appendDetails(sb);
+            System.out.print(sb);
+        }
+
+        public StringBuilder appendDetails(StringBuilder sb){
+            sb.append("Model: ").append(Model).append('\n');
+            sb.append("Make: ").append(Make).append('\n');
+            sb.append("Millege: ").append(Millege).append('\n');
+            sb.append("Rate Per Day: ").append(getRatePerDay()).append('\n');
+            return sb;
+        }
+
+
+        
+       
+
+       
+}
\ No newline at end of file
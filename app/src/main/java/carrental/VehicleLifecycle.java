@@ -0,0 +1,116 @@
+package carrental;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * VehicleLifecycle: the current VehicleState of every vehicle in a FleetStore.
+ *
+ * States are stored as ordinals in fixed-size AtomicIntegerArray chunks, so the table
+ * grows without copying and a slot never moves. Reading a state is one volatile read
+ * of the vehicle's slot; no lock is ever taken.
+ *
+ * A move is a compare-and-set from the state just read, retried only if the state
+ * changed to another state that may also make the move. Two clerks checking out the
+ * same car both read AVAILABLE (or RESERVED), but only one CAS to RENTED can succeed;
+ * the other re-reads RENTED, which cannot become RENTED, and is refused.
+ *
+ * Not persisted here: FleetStore reports every change to its listeners, and the
+ * write-ahead log and snapshot restore it through FleetStore.restoreState.
+ */
+public class VehicleLifecycle {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 16;
+
+    // Chunks are created by FleetStore (under its lock) before a new id is published
+    // through its volatile size, so any reader holding a valid id sees its chunk
+    private final AtomicIntegerArray[] chunks = new AtomicIntegerArray[MAX_CHUNKS];
+    // Vehicles in MAINTENANCE, so availability scans can skip the state check when none are
+    private final AtomicInteger inMaintenance = new AtomicInteger();
+
+    // Make room for vehicle id, which starts out AVAILABLE (ordinal 0)
+    void addVehicle(int id) {
+        int c = id >>> CHUNK_BITS;
+        if (c >= MAX_CHUNKS) throw new IllegalStateException("Fleet is full");
+        if (chunks[c] == null) chunks[c] = new AtomicIntegerArray(CHUNK_SIZE);
+    }
+
+    private AtomicIntegerArray chunk(int id) {
+        AtomicIntegerArray chunk = id > 0 && id >>> CHUNK_BITS < MAX_CHUNKS ? chunks[id >>> CHUNK_BITS] : null;
+        if (chunk == null) throw new IllegalArgumentException("No vehicle with id " + id);
+        return chunk;
+    }
+
+    public VehicleState state(int id) {
+        return VehicleState.of(chunk(id).get(id & (CHUNK_SIZE - 1)));
+    }
+
+    public boolean isAvailable(int id) {
+        return chunk(id).get(id & (CHUNK_SIZE - 1)) == VehicleState.AVAILABLE.ordinal();
+    }
+
+    // Move to target from whatever the current state is, if that move is allowed.
+    // Returns false (and changes nothing) if it is not.
+    public boolean moveTo(int id, VehicleState target) {
+        AtomicIntegerArray chunk = chunk(id);
+        int slot = id & (CHUNK_SIZE - 1);
+        while (true) {
+            int current = chunk.get(slot);
+            if (!VehicleState.of(current).canBecome(target)) return false;
+            if (chunk.compareAndSet(slot, current, target.ordinal())) {
+                moved(current, target.ordinal());
+                return true;
+            }
+        }
+    }
+
+    // Move from exactly `expected` to target; false if the vehicle is in another state
+    public boolean compareAndSet(int id, VehicleState expected, VehicleState target) {
+        if (!expected.canBecome(target)) {
+            throw new IllegalArgumentException("A vehicle cannot go from " + expected + " to " + target);
+        }
+        if (!chunk(id).compareAndSet(id & (CHUNK_SIZE - 1), expected.ordinal(), target.ordinal())) return false;
+        moved(expected.ordinal(), target.ordinal());
+        return true;
+    }
+
+    public boolean reserve(int id) {
+        return compareAndSet(id, VehicleState.AVAILABLE, VehicleState.RESERVED);
+    }
+
+    public boolean checkOut(int id) {
+        return moveTo(id, VehicleState.RENTED);
+    }
+
+    public boolean checkIn(int id) {
+        return compareAndSet(id, VehicleState.RENTED, VehicleState.RETURNED);
+    }
+
+    // Set without checking the rules (recovery, moving a vehicle between shards)
+    void set(int id, VehicleState state) {
+        moved(chunk(id).getAndSet(id & (CHUNK_SIZE - 1), state.ordinal()), state.ordinal());
+    }
+
+    private void moved(int from, int to) {
+        int maintenance = VehicleState.MAINTENANCE.ordinal();
+        if (from == maintenance) inMaintenance.decrementAndGet();
+        if (to == maintenance) inMaintenance.incrementAndGet();
+    }
+
+    // Number of vehicles currently in MAINTENANCE
+    public int maintenanceCount() {
+        return inMaintenance.get();
+    }
+
+    public boolean inMaintenance(int id) {
+        return chunk(id).get(id & (CHUNK_SIZE - 1)) == VehicleState.MAINTENANCE.ordinal();
+    }
+
+    // Number of vehicles 1..size in each state, indexed by ordinal
+    public int[] counts(int size) {
+        int[] counts = new int[VehicleState.values().length];
+        for (int id = 1; id <= size; id++) counts[chunks[id >>> CHUNK_BITS].get(id & (CHUNK_SIZE - 1))]++;
+        return counts;
+    }
+}
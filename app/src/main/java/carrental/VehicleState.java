@@ -0,0 +1,41 @@
+package carrental;
+
+/**
+ * VehicleState: where a vehicle is in its rental lifecycle.
+ *
+ *   AVAILABLE -> RESERVED -> RENTED -> RETURNED -> MAINTENANCE -> AVAILABLE
+ *
+ * plus the shortcuts a branch needs: a walk-in rental (AVAILABLE -> RENTED), a
+ * dropped reservation (RESERVED -> AVAILABLE), a returned car that needs no work
+ * (RETURNED -> AVAILABLE), a returned car handed straight to the next customer
+ * (RETURNED -> RENTED) and taking a free car out of service (AVAILABLE ->
+ * MAINTENANCE). Every other move is refused. A car in MAINTENANCE cannot be booked.
+ */
+public enum VehicleState {
+    AVAILABLE, RESERVED, RENTED, RETURNED, MAINTENANCE;
+
+    private static final VehicleState[] VALUES = values();
+
+    // Bit s is set if this state may move to the state with ordinal s
+    private int targets;
+
+    static {
+        AVAILABLE.allow(RESERVED, RENTED, MAINTENANCE);
+        RESERVED.allow(RENTED, AVAILABLE);
+        RENTED.allow(RETURNED);
+        RETURNED.allow(MAINTENANCE, AVAILABLE, RENTED);
+        MAINTENANCE.allow(AVAILABLE);
+    }
+
+    private void allow(VehicleState... next) {
+        for (VehicleState s : next) targets |= 1 << s.ordinal();
+    }
+
+    public boolean canBecome(VehicleState next) {
+        return (targets & (1 << next.ordinal())) != 0;
+    }
+
+    static VehicleState of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
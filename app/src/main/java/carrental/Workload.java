@@ -0,0 +1,267 @@
+package carrental;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Workload: seeded generator of realistic fleets and booking streams.
+ *
+ * The fleet follows a fixed make/model catalogue: makes are drawn by market share,
+ * each model has a type (Compact, Sedan, SUV, Van) that sets its seats and daily
+ * rate, premium makes cost more, and mileage follows the car's age.
+ *
+ * The operation stream is what customers do over a booking horizon:
+ * - BOOK: a rental of one model, chosen with a Zipf skew over a seeded popularity
+ *   ranking, so a few models get most of the demand. Start days follow the season
+ *   (a summer peak, the Christmas week, busier Fridays and Saturdays) and summer
+ *   rentals run longer.
+ * - CANCEL: one of the recent earlier BOOK operations, named by its position in the
+ *   stream (the runner knows which reference it produced, if any).
+ * - SEARCH: browsing for a type, seat count and dates without booking.
+ *
+ * The fleet and the stream come from separate generators derived from the seed, and
+ * neither depends on how operations turned out, so the same seed and sizes always
+ * produce exactly the same fleet and the same stream.
+ */
+public class Workload {
+    public static final int BOOK = 0;
+    public static final int CANCEL = 1;
+    public static final int SEARCH = 2;
+
+    static final String[] TYPES = {"Compact", "Sedan", "SUV", "Van"};
+    private static final int[] TYPE_RATE_CENTS = {3_500, 5_000, 7_500, 9_500};
+    private static final int[] TYPE_MIN_SEATS = {4, 5, 5, 7};
+    private static final int[] TYPE_MAX_SEATS = {5, 5, 7, 9};
+
+    // make, share of the fleet (percent), premium, then model:typeIndex pairs
+    private static final Object[][] CATALOGUE = {
+            {"Toyota", 20, false, "Yaris", 0, "Corolla", 1, "Camry", 1, "RAV4", 2, "Sienna", 3},
+            {"Honda", 15, false, "Fit", 0, "Civic", 1, "Accord", 1, "CR-V", 2, "Odyssey", 3},
+            {"Ford", 14, false, "Focus", 0, "Fusion", 1, "Escape", 2, "Explorer", 2, "Transit", 3},
+            {"Volkswagen", 10, false, "Golf", 0, "Passat", 1, "Tiguan", 2},
+            {"Hyundai", 10, false, "i10", 0, "Elantra", 1, "Tucson", 2},
+            {"Nissan", 8, false, "Micra", 0, "Altima", 1, "Qashqai", 2},
+            {"Kia", 8, false, "Rio", 0, "Sportage", 2, "Carnival", 3},
+            {"BMW", 6, true, "3 Series", 1, "X5", 2},
+            {"Mercedes", 5, true, "C-Class", 1, "GLE", 2, "V-Class", 3},
+            {"Tesla", 4, true, "Model 3", 1, "Model Y", 2},
+    };
+
+    // Flattened catalogue: one entry per model
+    static final String[] MODEL_MAKES;
+    static final String[] MODEL_NAMES;
+    static final int[] MODEL_TYPES;
+    private static final boolean[] MODEL_PREMIUM;
+    private static final int[] MAKE_CUMULATIVE_SHARE;
+    private static final int[] MAKE_FIRST_MODEL;
+
+    static {
+        int models = 0;
+        for (Object[] make : CATALOGUE) models += (make.length - 3) / 2;
+        MODEL_MAKES = new String[models];
+        MODEL_NAMES = new String[models];
+        MODEL_TYPES = new int[models];
+        MODEL_PREMIUM = new boolean[models];
+        MAKE_CUMULATIVE_SHARE = new int[CATALOGUE.length];
+        MAKE_FIRST_MODEL = new int[CATALOGUE.length + 1];
+        int m = 0;
+        int share = 0;
+        for (int k = 0; k < CATALOGUE.length; k++) {
+            Object[] make = CATALOGUE[k];
+            share += (Integer) make[1];
+            MAKE_CUMULATIVE_SHARE[k] = share;
+            MAKE_FIRST_MODEL[k] = m;
+            for (int i = 3; i < make.length; i += 2, m++) {
+                MODEL_MAKES[m] = (String) make[0];
+                MODEL_NAMES[m] = (String) make[i];
+                MODEL_TYPES[m] = (Integer) make[i + 1];
+                MODEL_PREMIUM[m] = (Boolean) make[2];
+            }
+        }
+        MAKE_FIRST_MODEL[CATALOGUE.length] = m;
+    }
+
+    private static final int CANCEL_PERCENT = 8;
+    private static final int SEARCH_PERCENT = 12;
+    private static final int CANCEL_WINDOW = 1000;   // cancellations pick one of the last this many bookings
+    private static final double ZIPF_EXPONENT = 1.1;
+
+    private final long seed;
+    private final int cars;
+    private final int firstDay;
+    private final int days;
+
+    private final Cars[] fleet;
+    private final int[][] carsByModel;      // vehicle ids (1-based, in fleet order) of each model
+    private final double[] modelCumulative; // Zipf demand over models, by popularity rank
+    private final int[] modelByRank;
+    private final double[] dayCumulative;   // start-day distribution over the horizon
+
+    private final SplittableRandom random;
+    private long operations;
+    private long bookOperations;
+
+    /**
+     * A fleet of `cars` and a booking stream whose rentals start within `days` days
+     * from firstDay (an epoch day).
+     */
+    public Workload(long seed, int cars, int firstDay, int days) {
+        if (cars <= 0 || days <= 0) throw new IllegalArgumentException("Workload needs cars and days");
+        this.seed = seed;
+        this.cars = cars;
+        this.firstDay = firstDay;
+        this.days = days;
+
+        SplittableRandom fleetRandom = new SplittableRandom(seed);
+        this.random = fleetRandom.split();
+        this.fleet = generateFleet(fleetRandom);
+
+        int[] counts = new int[MODEL_NAMES.length];
+        int[] modelOf = new int[cars];
+        for (int i = 0; i < cars; i++) {
+            modelOf[i] = indexOfModel(fleet[i].getMake(), fleet[i].getModel());
+            counts[modelOf[i]]++;
+        }
+        carsByModel = new int[MODEL_NAMES.length][];
+        for (int m = 0; m < counts.length; m++) carsByModel[m] = new int[counts[m]];
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < cars; i++) carsByModel[modelOf[i]][counts[modelOf[i]]++] = i + 1;
+
+        // Popularity: a seeded shuffle of the models actually in the fleet, Zipf over the ranks
+        int present = 0;
+        for (int[] ids : carsByModel) if (ids.length > 0) present++;
+        modelByRank = new int[present];
+        for (int m = 0, r = 0; m < carsByModel.length; m++) if (carsByModel[m].length > 0) modelByRank[r++] = m;
+        for (int i = present - 1; i > 0; i--) {
+            int j = fleetRandom.nextInt(i + 1);
+            int t = modelByRank[i];
+            modelByRank[i] = modelByRank[j];
+            modelByRank[j] = t;
+        }
+        modelCumulative = new double[present];
+        double total = 0;
+        for (int r = 0; r < present; r++) modelCumulative[r] = total += 1 / Math.pow(r + 1, ZIPF_EXPONENT);
+
+        dayCumulative = new double[days];
+        total = 0;
+        for (int d = 0; d < days; d++) dayCumulative[d] = total += seasonalWeight(firstDay + d);
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public int firstDay() {
+        return firstDay;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    // The generated fleet, in the order it should be added (vehicle id = index + 1)
+    public Cars[] fleet() {
+        return fleet;
+    }
+
+    // Operations generated so far
+    public long operations() {
+        return operations;
+    }
+
+    private Cars[] generateFleet(SplittableRandom r) {
+        Cars[] result = new Cars[cars];
+        for (int i = 0; i < cars; i++) {
+            int share = r.nextInt(MAKE_CUMULATIVE_SHARE[CATALOGUE.length - 1]);
+            int make = 0;
+            while (MAKE_CUMULATIVE_SHARE[make] <= share) make++;
+            int m = MAKE_FIRST_MODEL[make] + r.nextInt(MAKE_FIRST_MODEL[make + 1] - MAKE_FIRST_MODEL[make]);
+            int type = MODEL_TYPES[m];
+
+            // Rate: the type's rate, +60% for premium makes, +-15%, rounded to 50 cents
+            double rate = TYPE_RATE_CENTS[type] * (MODEL_PREMIUM[m] ? 1.6 : 1.0) * (0.85 + 0.3 * r.nextDouble());
+            long rateCents = Math.round(rate / 50) * 50;
+            int seats = TYPE_MIN_SEATS[type] + r.nextInt(TYPE_MAX_SEATS[type] - TYPE_MIN_SEATS[type] + 1);
+            // Up to 5 years old at 15,000-25,000 km a year
+            int mileage = (int) (r.nextDouble() * 5 * (15_000 + r.nextInt(10_000)));
+            result[i] = new Cars(MODEL_NAMES[m], MODEL_MAKES[m], mileage, rateCents, TYPES[type], String.valueOf(seats));
+        }
+        return result;
+    }
+
+    private static int indexOfModel(String make, String model) {
+        for (int m = 0; m < MODEL_NAMES.length; m++) {
+            if (MODEL_NAMES[m].equals(model) && MODEL_MAKES[m].equals(make)) return m;
+        }
+        throw new IllegalStateException("Not in the catalogue: " + make + " " + model);
+    }
+
+    // Relative demand for rentals starting on epochDay
+    static double seasonalWeight(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int dayOfYear = date.getDayOfYear();
+        double summer = (dayOfYear - 200) / 35.0;
+        double christmas = (dayOfYear - 358) / 10.0;
+        double weight = 1 + 0.8 * Math.exp(-summer * summer) + 0.6 * Math.exp(-christmas * christmas);
+        int dayOfWeek = date.getDayOfWeek().getValue();
+        if (dayOfWeek == 5 || dayOfWeek == 6) weight += 0.25;
+        return weight;
+    }
+
+    /**
+     * Op: one generated operation, reused by next(). For BOOK, vehicleId is the car
+     * the customer asks for first and type/seats describe acceptable alternatives;
+     * for CANCEL, target is the stream position (0-based count of BOOK operations) of
+     * the booking to cancel; for SEARCH, type/seats/startDay/endDay are the criteria.
+     */
+    public static final class Op {
+        public int kind;
+        public int vehicleId;
+        public int startDay;
+        public int endDay;
+        public String type;
+        public int seats;
+        public long target;
+        public long bookIndex;  // BOOK only: position among BOOK operations
+    }
+
+    // Generate the next operation into op
+    public Op next(Op op) {
+        operations++;
+        int roll = random.nextInt(100);
+        if (roll < CANCEL_PERCENT && bookOperations > 0) {
+            op.kind = CANCEL;
+            long window = Math.min(bookOperations, CANCEL_WINDOW);
+            op.target = bookOperations - 1 - random.nextLong(window);
+            return op;
+        }
+
+        int m = modelByRank[pick(modelCumulative, random.nextDouble())];
+        int[] ids = carsByModel[m];
+        op.vehicleId = ids[random.nextInt(ids.length)];
+        op.type = TYPES[MODEL_TYPES[m]];
+        op.seats = TYPE_MIN_SEATS[MODEL_TYPES[m]];
+        op.startDay = firstDay + pick(dayCumulative, random.nextDouble());
+        // 1-21 days, mean about 3; summer trips run two days longer
+        int length = 1 + (int) Math.min(20, -Math.log(1 - random.nextDouble()) * 2.5);
+        int dayOfYear = LocalDate.ofEpochDay(op.startDay).getDayOfYear();
+        if (dayOfYear >= 170 && dayOfYear < 240) length = Math.min(21, length + 2);
+        op.endDay = op.startDay + length;
+
+        if (roll < CANCEL_PERCENT + SEARCH_PERCENT) {
+            op.kind = SEARCH;
+        } else {
+            op.kind = BOOK;
+            op.bookIndex = bookOperations++;
+        }
+        return op;
+    }
+
+    // Index of the first cumulative weight above u * total
+    private static int pick(double[] cumulative, double u) {
+        int i = Arrays.binarySearch(cumulative, u * cumulative[cumulative.length - 1]);
+        if (i < 0) i = -i - 1;
+        return Math.min(i, cumulative.length - 1);
+    }
+}
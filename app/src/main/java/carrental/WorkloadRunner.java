@@ -0,0 +1,165 @@
+package carrental;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WorkloadRunner: drives a seeded Workload through the engines' public APIs and
+ * reports throughput and latency.
+ *
+ * Usage: java WorkloadRunner [seed] [cars] [operations] [opsPerSecond] [runs]
+ *        (default 42 10000 200000 0 2; opsPerSecond 0 = as fast as possible)
+ *
+ * The fleet is added with FleetStore.add; then every BOOK quotes the requested car
+ * and books it, falling back to the cheapest free car of the same type with enough
+ * seats (FleetSearch) when it is taken, every CANCEL cancels the reference its BOOK
+ * produced, and every SEARCH runs an availability search.
+ *
+ * With a target rate, operations are scheduled at fixed intervals and latency is
+ * measured from each operation's scheduled time rather than from when it actually
+ * started, so a stall shows up in the latency of everything queued behind it.
+ *
+ * Operations run on one thread in stream order, so the outcome of every operation is
+ * determined by the seed. Each run prints a checksum over all outcomes; the runs
+ * (in fresh engines) must agree, and the same seed gives the same checksum on any
+ * machine. Exits with status 1 if they do not.
+ */
+public class WorkloadRunner {
+    private static final int FIRST_DAY = 20_089;   // 2025-01-01
+    private static final int DAYS = 365;
+    private static final String[] KINDS = {"book", "cancel", "search"};
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int cars = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long operations = args.length > 2 ? Long.parseLong(args[2]) : 200_000;
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int runs = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        System.out.printf("Workload seed %d: %d cars, %d operations, %s%n", seed, cars, operations,
+                rate > 0 ? rate + " ops/s" : "unpaced");
+        long first = 0;
+        boolean ok = true;
+        for (int run = 1; run <= runs; run++) {
+            long checksum = new WorkloadRunner(new Workload(seed, cars, FIRST_DAY, DAYS)).run(operations, rate);
+            if (run == 1) first = checksum;
+            ok &= checksum == first;
+        }
+        if (runs > 1) System.out.println(ok ? "Runs repeatable: OK" : "Runs repeatable: FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private final Workload workload;
+    private final FleetStore fleet = new FleetStore();
+    private final BookingEngine bookings = new BookingEngine(fleet);
+    private final QuoteEngine quotes = new QuoteEngine(fleet);
+    private final FleetSearch search = new FleetSearch(fleet, bookings);
+
+    private final LatencyHistogram[] latency = new LatencyHistogram[KINDS.length];
+    private final long[] counts = new long[KINDS.length];
+    private long[] references = new long[1 << 16];   // by BOOK position, -1 if turned away
+    private long booked;
+    private long rebooked;
+    private long turnedAway;
+    private long cancelled;
+    private long revenueCents;
+    private long checksum = 1469598103934665603L;
+
+    WorkloadRunner(Workload workload) {
+        this.workload = workload;
+        for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+    }
+
+    // Load the fleet, run the stream and print the report; returns the checksum
+    long run(long operations, int rate) {
+        long started = System.nanoTime();
+        for (Cars car : workload.fleet()) fleet.add(car);
+        long loadNanos = System.nanoTime() - started;
+
+        Workload.Op op = new Workload.Op();
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        started = System.nanoTime();
+        for (long i = 0; i < operations; i++) {
+            workload.next(op);
+            long scheduled = interval > 0 ? started + i * interval : System.nanoTime();
+            if (interval > 0) {
+                long wait;
+                while ((wait = scheduled - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+            }
+            mix(execute(op));
+            latency[op.kind].record(System.nanoTime() - scheduled);
+            counts[op.kind]++;
+        }
+        long elapsed = System.nanoTime() - started;
+        report(loadNanos, elapsed, operations);
+        return checksum;
+    }
+
+    // Run one operation; returns its outcome for the checksum
+    private long execute(Workload.Op op) {
+        switch (op.kind) {
+            case Workload.BOOK: {
+                long reference = book(op.vehicleId, op);
+                if (reference < 0) {
+                    int[] alternatives = search.search(new FleetSearch.Query().type(op.type).seats(op.seats, Integer.MAX_VALUE)
+                            .availableBetween(op.startDay, op.endDay).cheapestFirst().limit(1));
+                    if (alternatives.length > 0) {
+                        reference = book(alternatives[0], op);
+                        if (reference >= 0) rebooked++;
+                    }
+                }
+                if (reference < 0) turnedAway++;
+                else booked++;
+                if (op.bookIndex >= references.length) {
+                    references = Arrays.copyOf(references, references.length * 2);
+                }
+                references[(int) op.bookIndex] = reference;
+                return reference;
+            }
+            case Workload.CANCEL: {
+                long reference = references[(int) op.target];
+                if (reference < 0 || !bookings.cancel(reference)) return -1;
+                references[(int) op.target] = -1;
+                cancelled++;
+                return reference;
+            }
+            default: {
+                int[] found = search.search(new FleetSearch.Query().type(op.type).seats(op.seats, Integer.MAX_VALUE)
+                        .availableBetween(op.startDay, op.endDay).cheapestFirst().limit(10));
+                return found.length == 0 ? 0 : (long) found.length << 32 | found[0];
+            }
+        }
+    }
+
+    // Quote, then book if the car is free; -1 if it is not
+    private long book(int vehicleId, Workload.Op op) {
+        long price = quotes.quote(vehicleId, op.startDay, op.endDay);
+        long reference = bookings.book(vehicleId, op.startDay, op.endDay);
+        if (reference >= 0) revenueCents += price;
+        return reference;
+    }
+
+    // FNV-1a over the outcome's bytes
+    private void mix(long outcome) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            checksum ^= (outcome >>> shift) & 0xff;
+            checksum *= 1099511628211L;
+        }
+    }
+
+    private void report(long loadNanos, long elapsed, long operations) {
+        System.out.printf("  fleet of %d added in %d ms; %d operations in %d ms = %.0f ops/s%n", fleet.size(),
+                loadNanos / 1_000_000, operations, elapsed / 1_000_000, operations * 1e9 / elapsed);
+        for (int k = 0; k < KINDS.length; k++) {
+            LatencyHistogram h = latency[k];
+            if (h.count() == 0) continue;
+            System.out.printf("    %-6s %8d  p50 %6.1f us  p99 %7.1f us  p99.9 %7.1f us  max %8.1f us%n", KINDS[k],
+                    counts[k], h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3,
+                    h.max() / 1e3);
+        }
+        System.out.printf("  booked %d (%d on an alternative car), turned away %d, cancelled %d, revenue %s%n",
+                booked, rebooked, turnedAway, cancelled, Money.format(revenueCents));
+        System.out.printf("  checksum %016x%n", checksum);
+    }
+}
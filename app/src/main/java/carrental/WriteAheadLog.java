@@ -0,0 +1,483 @@
+package carrental;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog: append-only, checksummed binary log of fleet and booking changes.
+ *
+ * Registered as a RentalListener, it encodes every change into an in-memory buffer
+ * (no I/O on the caller's thread). Buffered records reach disk through group commit:
+ * whoever flushes writes and fsyncs everything appended so far, so many concurrent
+ * writers share a single fsync. A background thread flushes every commitMillis;
+ * callers that need a change to be durable before answering call sync().
+ *
+ * Record layout: [int payloadLength][byte type][payload][int crc32(type + payload)].
+ * A torn or corrupt record marks the end of the log; replay stops there.
+ *
+ * The log is split into generations (wal-000001.log, wal-000002.log, ...). A new
+ * generation is started at each snapshot, so recovery only replays the logs written
+ * since the latest snapshot.
+ */
+public class WriteAheadLog implements RentalListener, Closeable {
+    static final byte CAR_ADDED = 1;
+    static final byte MILEAGE = 2;
+    static final byte BOOKED = 3;
+    static final byte CANCELLED = 4;
+    static final byte ODOMETER = 5;
+    static final byte STATE = 6;
+
+    private static final int HEADER = 5;  // length + type
+    private static final int TRAILER = 4; // crc
+
+    private final Path dir;
+    // ReentrantLocks, not monitors: a virtual thread waiting out an fsync here parks
+    // instead of pinning its carrier thread
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32(); // guarded by appendLock
+    private int recordStart;               // buffer position of the record being written
+
+    // Records are appended to buffer; a flush swaps in spare and writes the old one
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 20);
+
+    private FileChannel channel;
+    private long generation;
+    private long generationBytes; // bytes appended to the current generation
+
+    private long appended;          // total bytes appended (guarded by appendLock)
+    private volatile long durable; // total bytes known to be on disk
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private final Thread flusher;
+
+    // Open (or create) generation in dir for appending
+    public WriteAheadLog(Path dir, long generation, long commitMillis) throws IOException {
+        this.dir = dir;
+        this.generation = generation;
+        this.channel = openGeneration(generation);
+        this.generationBytes = channel.size();
+
+        flusher = new Thread(() -> {
+            while (!closed) {
+                try {
+                    Thread.sleep(commitMillis);
+                    flush();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static Path file(Path dir, long generation) {
+        return dir.resolve(String.format("wal-%06d.log", generation));
+    }
+
+    // Generations present in dir, oldest first
+    public static List<Long> generations(Path dir) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (var files = Files.newDirectoryStream(dir, "wal-*.log")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                result.add(Long.parseLong(name.substring(4, name.length() - 4)));
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    // RentalListener: encode each change into the buffer
+
+    @Override
+    public void carAdded(int vehicleId, Cars car) {
+        byte[] model = utf8(car.getModel());
+        byte[] make = utf8(car.getMake());
+        byte[] type = utf8(car.getType());
+        byte[] seats = utf8(car.getSeatingCapacity());
+        appendLock.lock();
+        try {
+            // id, mileage, rate, then four length-prefixed strings
+            ByteBuffer b = begin(4 + 4 + 8 + 4 * 4 + model.length + make.length + type.length + seats.length, CAR_ADDED);
+            b.putInt(vehicleId);
+            b.putInt(car.getMillege());
+            b.putLong(car.getRateCents());
+            putString(b, model);
+            putString(b, make);
+            putString(b, type);
+            putString(b, seats);
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void mileageChanged(int vehicleId, int mileage) {
+        appendLock.lock();
+        try {
+            ByteBuffer b = begin(8, MILEAGE);
+            b.putInt(vehicleId);
+            b.putInt(mileage);
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void odometerRead(int vehicleId, int day, int mileage, int kind) {
+        appendLock.lock();
+        try {
+            ByteBuffer b = begin(13, ODOMETER);
+            b.putInt(vehicleId);
+            b.putInt(day);
+            b.putInt(mileage);
+            b.put((byte) kind);
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void stateChanged(int vehicleId, VehicleState state) {
+        appendLock.lock();
+        try {
+            ByteBuffer b = begin(5, STATE);
+            b.putInt(vehicleId);
+            b.put((byte) state.ordinal());
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void booked(long reference, int startDay, int endDay) {
+        appendLock.lock();
+        try {
+            ByteBuffer b = begin(16, BOOKED);
+            b.putLong(reference);
+            b.putInt(startDay);
+            b.putInt(endDay);
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void cancelled(long reference, int startDay, int endDay) {
+        appendLock.lock();
+        try {
+            ByteBuffer b = begin(8, CANCELLED);
+            b.putLong(reference);
+            end(b);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Reserve room for a record and write its header; returns the buffer to fill
+    private ByteBuffer begin(int payloadLength, byte type) {
+        if (closed) throw new IllegalStateException("Log is closed");
+        // A failed log never writes again; keep the buffer from growing without bound
+        if (failure != null) buffer.clear();
+        int needed = HEADER + payloadLength + TRAILER;
+        if (buffer.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+        recordStart = buffer.position();
+        buffer.putInt(payloadLength);
+        buffer.put(type);
+        return buffer;
+    }
+
+    // Append the checksum of the record just written
+    private void end(ByteBuffer b) {
+        int typeStart = recordStart + 4;
+        int size = b.position() - recordStart + TRAILER;
+        crc.reset();
+        crc.update(b.array(), typeStart, b.position() - typeStart);
+        b.putInt((int) crc.getValue());
+        appended += size;
+        generationBytes += size;
+    }
+
+    // Write and fsync everything appended so far (group commit). If a write or fsync
+    // fails, the log is failed for good: the records taken for this flush may be partly
+    // on disk, so they cannot be retried, and every later flush or sync throws.
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            checkFailure();
+            ByteBuffer toWrite;
+            long end;
+            appendLock.lock();
+            try {
+                if (buffer.position() == 0) return;
+                toWrite = buffer;
+                buffer = spare;
+                spare = null;
+                end = appended;
+            } finally {
+                appendLock.unlock();
+            }
+            try {
+                toWrite.flip();
+                while (toWrite.hasRemaining()) channel.write(toWrite);
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            toWrite.clear();
+            appendLock.lock();
+            try {
+                spare = toWrite;
+            } finally {
+                appendLock.unlock();
+            }
+            durable = end;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Block until every change appended before this call is on disk
+    public void sync() throws IOException {
+        checkFailure();
+        long target;
+        appendLock.lock();
+        try {
+            target = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        if (durable < target) flush();
+        // Another thread's flush may have taken these records and failed
+        if (durable < target) checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException f = failure;
+        if (f != null) throw f;
+    }
+
+    // Start a new generation. While appends are held off, the pending buffer is made
+    // durable, atCut runs (the caller captures a consistent state there), and the
+    // log switches files. Returns the new generation number.
+    public long rotate(Runnable atCut) throws IOException {
+        flushLock.lock();
+        try {
+            checkFailure();
+            appendLock.lock();
+            try {
+                try {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    channel.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+                buffer.clear();
+                durable = appended;
+
+                atCut.run();
+
+                channel.close();
+                generation++;
+                channel = openGeneration(generation);
+                generationBytes = 0;
+                return generation;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long generation() {
+        appendLock.lock();
+        try {
+            return generation;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Bytes appended to the current generation (used to decide when to snapshot)
+    public long generationBytes() {
+        appendLock.lock();
+        try {
+            return generationBytes;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            closed = true;
+            flusher.interrupt();
+            flushLock.lock();
+            try {
+                channel.close();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private FileChannel openGeneration(long gen) throws IOException {
+        return FileChannel.open(file(dir, gen), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // Replay one log file into fleet and bookings. Stops at the first torn or corrupt
+    // record and truncates the file there, so later appends follow valid data.
+    // Returns the number of records applied.
+    public static int replay(Path file, FleetStore fleet, BookingEngine bookings) throws IOException {
+        int records = 0;
+        long valid = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            ByteBuffer in = ByteBuffer.allocate(1 << 16);
+            CRC32 check = new CRC32();
+            ch.read(in);
+            in.flip();
+            while (true) {
+                if (in.remaining() < HEADER) {
+                    if (!refill(ch, in, HEADER)) break;
+                }
+                int payloadLength = in.getInt(in.position());
+                if (payloadLength < 0 || valid + HEADER + payloadLength + TRAILER > size) break;
+                int recordSize = HEADER + payloadLength + TRAILER;
+                if (in.remaining() < recordSize) {
+                    if (in.capacity() < recordSize) {
+                        ByteBuffer bigger = ByteBuffer.allocate(recordSize);
+                        bigger.put(in);
+                        bigger.flip();
+                        in = bigger;
+                    }
+                    if (!refill(ch, in, recordSize)) break;
+                }
+
+                int start = in.position();
+                check.reset();
+                check.update(in.array(), start + 4, payloadLength + 1);
+                if (in.getInt(start + HEADER + payloadLength) != (int) check.getValue()) break;
+
+                in.position(start + 4);
+                byte type = in.get();
+                apply(type, in, fleet, bookings);
+                in.position(start + recordSize);
+                valid += recordSize;
+                records++;
+            }
+            if (valid < size) ch.truncate(valid);
+        }
+        return records;
+    }
+
+    // Compact and read more so at least `needed` bytes are available; false at end of file
+    private static boolean refill(FileChannel ch, ByteBuffer in, int needed) throws IOException {
+        in.compact();
+        while (in.position() < needed) {
+            if (ch.read(in) < 0) {
+                in.flip();
+                return false;
+            }
+        }
+        in.flip();
+        return true;
+    }
+
+    private static void apply(byte type, ByteBuffer in, FleetStore fleet, BookingEngine bookings) {
+        switch (type) {
+            case CAR_ADDED: {
+                int id = in.getInt();
+                int mileage = in.getInt();
+                long rateCents = in.getLong();
+                String model = getString(in);
+                String make = getString(in);
+                String carType = getString(in);
+                String seats = getString(in);
+                if (id <= fleet.size()) break; // already in the snapshot
+                if (id != fleet.size() + 1) throw new IllegalStateException("Log is missing vehicles before id " + id);
+                fleet.restore(new Cars(model, make, mileage, rateCents, carType, seats));
+                break;
+            }
+            case MILEAGE: {
+                int id = in.getInt();
+                fleet.restoreMileage(id, in.getInt());
+                break;
+            }
+            case ODOMETER: {
+                int id = in.getInt();
+                int day = in.getInt();
+                int km = in.getInt();
+                int kind = in.get();
+                // The snapshot may already hold a reading logged just after its cut
+                if (!fleet.odometer().isLast(id, day, km, kind)) fleet.replayReading(id, day, km, kind);
+                break;
+            }
+            case STATE: {
+                int id = in.getInt();
+                fleet.restoreState(id, VehicleState.of(in.get()));
+                break;
+            }
+            case BOOKED: {
+                long reference = in.getLong();
+                bookings.restore(reference, in.getInt(), in.getInt());
+                break;
+            }
+            case CANCELLED:
+                bookings.restoreCancel(in.getLong());
+                break;
+            default:
+                throw new IllegalStateException("Unknown log record type " + type);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer b, byte[] bytes) {
+        b.putInt(bytes.length);
+        b.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+}
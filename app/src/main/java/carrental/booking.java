@@ -0,0 +1,55 @@
+package carrental;
+
+public class booking extends Vehicle {
+    // Dates are held as epoch days; the String accessors convert to/from yyyy-MM-dd
+    int startDay;
+    int endDay;
+
+    public booking(String model, String make, int millege, String ratePerDay, String startDate, String endDate){
+        super(model, make, millege, ratePerDay);
+        this.startDay = BookingEngine.parseDay(startDate);
+        this.endDay = BookingEngine.parseDay(endDate);
+    }
+
+    public booking(String model, String make, int millege, long rateCents, int startDay, int endDay){
+        super(model, make, millege, rateCents);
+        this.startDay = startDay;
+        this.endDay = endDay;
+    }
+
+
+    public String getStartDate() {
+        return BookingEngine.formatDay(startDay);
+    }
+
+
+    public void setStartDate(String startDate) {
+        this.startDay = BookingEngine.parseDay(startDate);
+    }
+
+
+    public String getEndDate() {
+        return BookingEngine.formatDay(endDay);
+    }
+
+
+    public void setEndDate(String endDate) {
+        this.endDay = BookingEngine.parseDay(endDate);
+    }
+
+
+    public int getStartDay() {
+        return startDay;
+    }
+
+
+    public int getEndDay() {
+        return endDay;
+    }
+
+
+    // Number of rental days (the return day is not charged)
+    public int getDays() {
+        return endDay - startDay;
+    }
+}
@@ -0,0 +1,25 @@
+package snake;
+
+/**
+ * Direction enum: encapsulates movement vectors for each direction.
+ *
+ * Using an enum here is safer and clearer than integer constants. Each enum
+ * instance carries the dx,dy offsets used when moving the snake.
+ */
+enum Direction {
+    UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0);
+
+    public final int dx;
+    public final int dy;
+    Direction(int dx, int dy) { this.dx = dx; this.dy = dy; }
+
+    // The direction pointing back the way this one came
+    Direction opposite() {
+        switch (this) {
+            case UP: return DOWN;
+            case DOWN: return UP;
+            case LEFT: return RIGHT;
+            default: return LEFT;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package snake;
+
+/**
+ * Food: simple data object representing food position.
+ */
+class Food {
+    public final int x;
+    public final int y;
+
+    Food(int x, int y) { this.x = x; this.y = y; }
+}
@@ -0,0 +1,611 @@
+package snake;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.*;
+
+/**
+ * Snake.java
+ *
+ * An object-oriented Snake game implemented using Java Swing.
+ *
+ * Design overview (OOP applied):
+ * - Public class Snake contains main() (entry point) and starts the Game.
+ * - Game class creates the window and owns the configuration.
+ * - GamePanel extends JPanel and handles drawing and input delegation.
+ * - GameLoop ticks the game at a fixed rate on its own thread; InputQueue carries
+ *   key presses to it.
+ * - The game's state and rules live in SnakeEngine, built on the model classes
+ *   SnakeBody, Food and Direction (one file each), none of which knows anything
+ *   about Swing; SnakeController.java and SnakeSimulator.java let bots play it
+ *   headless.
+ *
+ * The code is deliberately written with thorough comments that explain the theory
+ * and purpose of each field, method and important code block.
+ */
+public class Snake {
+
+    // Entry point of the program.
+    // We keep main minimal: create a Game and start it on the Swing event thread.
+    // Optional arguments: gridWidth gridHeight cellSize (default 30 20 20), e.g.
+    // "400 250 3" for a big board to watch the frame time (press F) on.
+    public static void main(String[] args) {
+        int gridWidth = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int gridHeight = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int cellSize = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        // Swing utilities ensure GUI creation runs on Event Dispatch Thread (EDT).
+        SwingUtilities.invokeLater(() -> {
+            Game game = new Game(gridWidth, gridHeight, cellSize);
+            game.start();
+        });
+    }
+}
+
+/**
+ * Game: high-level controller of the Snake application.
+ *
+ * Responsibilities:
+ * - Create window (JFrame) and GamePanel
+ * - Own shared configuration (grid size, cell pixel size)
+ * - Start and stop the game
+ *
+ * This centralizes application configuration and separates UI (GamePanel) from
+ * application control (Game). This separation of concerns is an OOP best practice.
+ */
+class Game {
+    // Grid (logical) dimensions in number of cells
+    private final int gridWidth;
+    private final int gridHeight;
+    // Visual size of each grid cell in pixels
+    private final int cellSize;
+
+    private JFrame window;
+    private final GamePanel panel;
+
+    Game(int gridWidth, int gridHeight, int cellSize) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.cellSize = cellSize;
+
+        // Create the panel (view + controller for painting and input).
+        // The window is only created in start(), so a Game can also be built
+        // without a display (e.g. by the benchmarks).
+        panel = new GamePanel(this);
+        panel.setPreferredSize(new Dimension(gridWidth * cellSize, gridHeight * cellSize));
+    }
+
+    // Expose configuration for other objects (read-only)
+    public int getGridWidth() { return gridWidth; }
+    public int getGridHeight() { return gridHeight; }
+    public int getCellSize() { return cellSize; }
+    GamePanel getPanel() { return panel; }
+
+    // Create and show the window (JFrame), then start the game loop inside GamePanel
+    public void start() {
+        window = new JFrame("Snake - Simple OOP Example");
+        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.setContentPane(panel);
+        window.pack();
+        window.setResizable(false);
+        window.setLocationRelativeTo(null); // center on screen
+
+        window.setVisible(true);
+        panel.startGameLoop();
+    }
+}
+
+/**
+ * GamePanel: JPanel responsible for rendering and user input.
+ *
+ * Key responsibilities:
+ * - Own a SnakeEngine, which holds the game state and rules (see SnakeEngine.java).
+ * - Advance the engine on each tick of its GameLoop.
+ * - Render current game state in paintComponent.
+ * - Listen for keyboard input to change direction or restart.
+ *
+ * The panel itself is only a view and an input device: everything it draws is
+ * read from the engine, and every key press becomes an engine call. The same
+ * engine runs without any window for bots and tests.
+ *
+ * Threads: the game runs on the GameLoop's own thread, at a fixed timestep that
+ * does not depend on how busy Swing is; only drawing happens on the Event
+ * Dispatch Thread (EDT). The two share the engine under its monitor
+ * (synchronized (engine)), held only for a tick or for reading the state to
+ * draw. Key presses go the other way through a small lock-free InputQueue:
+ * every press is queued, and each tick takes one turn from it, so quick
+ * presses (e.g. up then left to U-turn) all happen, one per tick, instead of
+ * the second being dropped.
+ *
+ * Rendering theory: between two ticks at most five cells change (old and new
+ * head, old tail, old and new food), so redrawing the whole board every tick is
+ * wasted work that grows with the board. Instead:
+ * - The static grid is drawn once into gridImage.
+ * - The complete board is kept in a second image, frame. Each tick the loop
+ *   notes which cells changed; the EDT then redraws only those into frame (grid
+ *   patch first, then the cell's colour) and passes only their rectangles to
+ *   repaint(Rectangle).
+ * - paintComponent just copies the dirty part of frame to the screen and draws
+ *   the HUD on top. Colours and the font are constants, so a frame allocates
+ *   nothing.
+ * Pressing F shows the frame time (cell updates plus paintComponent) and how late
+ * ticks started, averaged (and the worst case) over the last second.
+ */
+class GamePanel extends JPanel implements KeyListener {
+
+    // The game being shown; seeded from the clock so each game is different.
+    // Also the lock for everything shared between the loop thread and the EDT.
+    private final SnakeEngine engine;
+
+    // Direction key presses waiting for a tick (EDT -> loop thread)
+    private final InputQueue input = new InputQueue(8);
+
+    private final Game game; // reference to parent for grid sizes
+    private final GameLoop loop;
+
+    // Speed: the tick interval starts at 150 ms (~6.7 ticks per second) and gets
+    // 3% shorter with every food eaten, down to 15 ms
+    static final long START_TICK_NANOS = 150_000_000L;
+    static final long MIN_TICK_NANOS = 15_000_000L;
+    private volatile long tickNanos = START_TICK_NANOS;
+
+    // Set by R on the EDT, carried out by the loop thread
+    private volatile boolean restartRequested;
+
+    // Colours and font, created once instead of on every frame
+    private static final Color GRID_COLOR = new Color(0, 0, 0, 80); // semi-transparent
+    private static final Color HEAD_COLOR = Color.GREEN.brighter();
+    private static final Color BODY_COLOR = Color.GREEN.darker();
+    private static final Color FOOD_COLOR = Color.RED;
+    private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.BOLD, 14);
+    // Screen area the score line (and frame time) is drawn in
+    private static final Rectangle HUD_AREA = new Rectangle(0, 0, 560, 22);
+
+    // Cached images (see class comment); created on first paint, so a panel that is
+    // never shown (benchmarks, tests) never pays for them. EDT only.
+    private BufferedImage gridImage;
+    private BufferedImage frame;
+    private Graphics2D frameGraphics;
+    private volatile boolean imagesReady;
+
+    // Cells changed by ticks since the last render, as y * gridWidth + x; guarded
+    // by engine. If the EDT falls far behind, the whole board is redrawn instead.
+    private final int[] dirty = new int[1024];
+    private int dirtyCount;
+    private boolean redrawAll;
+    private boolean hudChanged;
+    private final AtomicBoolean renderQueued = new AtomicBoolean();
+
+    // Frame-time and tick-lateness counters, shown in the HUD while showFrameTime
+    // is on (F key)
+    private final FrameTimer frameTimer = new FrameTimer();
+    private final FrameTimer lateTimer = new FrameTimer();
+    private volatile boolean showFrameTime = false;
+    private long pendingUpdateNanos; // cell updates not yet counted in a frame (EDT)
+
+    // Constructor: store reference to Game for configuration and add input listener
+    GamePanel(Game game) {
+        this.game = game;
+        this.engine = new SnakeEngine(game.getGridWidth(), game.getGridHeight(), System.nanoTime());
+        this.loop = new GameLoop(this);
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        addKeyListener(this);
+        initGame();
+    }
+
+    // Initialize or reset the game state (called at start and on restart)
+    private void initGame() {
+        initGame(3);
+    }
+
+    // Reset with a snake of the given length, laid out to the left of the center
+    // cell and heading right. Package-private so benchmarks can start long snakes.
+    // Call from the loop thread (or before the loop starts): it drains the input queue.
+    void initGame(int length) {
+        synchronized (engine) {
+            engine.reset(length);
+            input.clear();
+            tickNanos = START_TICK_NANOS;
+            // New game: the whole board changes once
+            redrawAll = true;
+        }
+        if (imagesReady) scheduleRender();
+    }
+
+    // Start the game loop thread
+    public void startGameLoop() {
+        loop.start();
+    }
+
+    // Called by the loop before each tick: carry out a restart requested with R.
+    // Returns true if the game was restarted.
+    boolean restartIfRequested() {
+        if (!restartRequested) return false;
+        restartRequested = false;
+        initGame();
+        return true;
+    }
+
+    long tickNanos() { return tickNanos; }
+
+    // Called by the loop with how long after its scheduled time a tick started
+    void recordLateness(long nanos) { lateTimer.record(nanos); }
+
+    // One tick (package-private for benchmarks): take one queued turn, advance the
+    // engine, note the cells that changed and hand them to the EDT to draw
+    void update() {
+        synchronized (engine) {
+            // One turn per tick. Presses that change nothing (the current direction,
+            // or straight back) are skipped so they do not hold up the next one.
+            Direction d;
+            while ((d = input.poll()) != null) {
+                if (d != engine.direction() && engine.turn(d)) break;
+            }
+
+            boolean track = imagesReady;
+            int oldScore = engine.score();
+            if (track) {
+                markDirty(engine.headX(), engine.headY());
+                markDirty(engine.x(engine.length() - 1), engine.y(engine.length() - 1));
+                Food food = engine.food();
+                if (food != null) markDirty(food.x, food.y);
+            }
+
+            engine.tick();
+
+            if (track) {
+                markDirty(engine.headX(), engine.headY());
+                Food food = engine.food();
+                if (food != null) markDirty(food.x, food.y);
+            }
+            if (engine.score() != oldScore) {
+                hudChanged = true;
+                tickNanos = Math.max(MIN_TICK_NANOS, tickNanos * 97 / 100);
+            }
+        }
+        if (imagesReady) scheduleRender();
+    }
+
+    // Guarded by engine
+    private void markDirty(int x, int y) {
+        if (dirtyCount == dirty.length) redrawAll = true;
+        else dirty[dirtyCount++] = y * game.getGridWidth() + x;
+    }
+
+    boolean isRunning() { synchronized (engine) { return engine.isRunning(); } }
+    boolean isWon() { synchronized (engine) { return engine.isWon(); } }
+    int getSnakeLength() { synchronized (engine) { return engine.length(); } }
+
+    // Ask the EDT to draw what changed, unless it has been asked already
+    private void scheduleRender() {
+        if (renderQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::render);
+    }
+
+    // EDT: redraw the changed cells into frame and repaint just those areas
+    private void render() {
+        renderQueued.set(false);
+        if (frame == null) return; // the first paint draws the whole board
+        long start = System.nanoTime();
+        synchronized (engine) {
+            if (redrawAll) {
+                drawBoard();
+                repaint();
+            } else {
+                int width = game.getGridWidth();
+                for (int i = 0; i < dirtyCount; i++) refreshCell(dirty[i] % width, dirty[i] / width);
+                if (!engine.isRunning()) repaint();   // game over message in the middle
+                else if (showFrameTime || hudChanged) repaint(HUD_AREA);
+            }
+            redrawAll = false;
+            hudChanged = false;
+            dirtyCount = 0;
+        }
+        pendingUpdateNanos += System.nanoTime() - start;
+    }
+
+    // Paint the current game state. Swing calls this on EDT, with the clip set to
+    // the union of the rectangles passed to repaint since the last paint.
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        super.paintComponent(g);
+        if (frame == null) {
+            createImages();
+            synchronized (engine) {
+                drawBoard();
+                dirtyCount = 0;
+                redrawAll = false;
+                // From the next tick on, changes are tracked for render()
+                imagesReady = true;
+            }
+        }
+        Graphics2D g2 = (Graphics2D) g.create();
+
+        // The board: a copy of the cached frame, limited by the clip to what changed
+        g2.drawImage(frame, 0, 0, null);
+
+        // Draw score and messages
+        drawHUD(g2);
+
+        g2.dispose();
+        frameTimer.record(pendingUpdateNanos + System.nanoTime() - start);
+        pendingUpdateNanos = 0;
+    }
+
+    // Average and worst frame time over the last completed second (package-private
+    // for tests), in nanoseconds
+    FrameTimer getFrameTimer() { return frameTimer; }
+
+    // Draw the static grid once, and allocate the frame it is copied into
+    private void createImages() {
+        int w = game.getGridWidth() * game.getCellSize();
+        int h = game.getGridHeight() * game.getCellSize();
+        gridImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = gridImage.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, w, h);
+        drawGrid(g2);
+        g2.dispose();
+
+        frame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        frameGraphics = frame.createGraphics();
+    }
+
+    // Redraw the whole frame: the grid, then the food and every snake cell. The head
+    // goes last, so it stays visible where it ran into the body.
+    private void drawBoard() {
+        frameGraphics.drawImage(gridImage, 0, 0, null);
+        Food food = engine.food();
+        if (food != null) drawCell(frameGraphics, food.x, food.y, FOOD_COLOR);
+        for (int i = engine.length() - 1; i >= 0; i--) {
+            drawCell(frameGraphics, engine.x(i), engine.y(i), i == 0 ? HEAD_COLOR : BODY_COLOR);
+        }
+    }
+
+    // Redraw one cell of the frame from the current state and schedule it for the screen
+    private void refreshCell(int x, int y) {
+        int cs = game.getCellSize();
+        int px = x * cs;
+        int py = y * cs;
+        frameGraphics.drawImage(gridImage, px, py, px + cs, py + cs, px, py, px + cs, py + cs, null);
+        Food food = engine.food();
+        // Snake above food, as drawBoard paints it
+        if (x == engine.headX() && y == engine.headY()) drawCell(frameGraphics, x, y, HEAD_COLOR);
+        else if (engine.isBlocked(x, y)) drawCell(frameGraphics, x, y, BODY_COLOR);
+        else if (food != null && food.x == x && food.y == y) drawCell(frameGraphics, x, y, FOOD_COLOR);
+        repaint(px, py, cs, cs);
+    }
+
+    // Draw a single grid cell at logical coordinates (x,y) with the given color.
+    // The border stays inside the cell, so redrawing one cell never touches another.
+    private void drawCell(Graphics2D g2, int x, int y, Color color) {
+        int px = x * game.getCellSize();
+        int py = y * game.getCellSize();
+        g2.setColor(color);
+        g2.fillRect(px, py, game.getCellSize(), game.getCellSize());
+        // Draw a subtle border to separate cells visually
+        g2.setColor(Color.BLACK);
+        g2.drawRect(px, py, game.getCellSize() - 1, game.getCellSize() - 1);
+    }
+
+    // Draw a faint grid to help the player see cells (once, into gridImage)
+    private void drawGrid(Graphics2D g2) {
+        g2.setColor(GRID_COLOR);
+        int w = game.getGridWidth() * game.getCellSize();
+        int h = game.getGridHeight() * game.getCellSize();
+        for (int x = 0; x <= w; x += game.getCellSize()) g2.drawLine(x, 0, x, h);
+        for (int y = 0; y <= h; y += game.getCellSize()) g2.drawLine(0, y, w, y);
+    }
+
+    // Heads-up display: score, frame time and game over message
+    private void drawHUD(Graphics2D g2) {
+        int score;
+        boolean running;
+        boolean won;
+        synchronized (engine) {
+            score = engine.score();
+            running = engine.isRunning();
+            won = engine.isWon();
+        }
+        g2.setColor(Color.WHITE);
+        g2.setFont(HUD_FONT);
+        if (showFrameTime) {
+            g2.drawString(String.format("Score: %d  frame %.3f ms (max %.3f)  tick %.0f ms, late max %.3f ms",
+                    score, frameTimer.meanNanos() / 1e6, frameTimer.maxNanos() / 1e6, tickNanos / 1e6,
+                    lateTimer.maxNanos() / 1e6), 8, 16);
+        } else {
+            g2.drawString("Score: " + score, 8, 16);
+        }
+
+        if (!running) {
+            String msg = won ? "You Win - Press R to Restart" : "Game Over - Press R to Restart";
+            FontMetrics fm = g2.getFontMetrics();
+            int w = fm.stringWidth(msg);
+            int x = (getWidth() - w) / 2;
+            int y = getHeight() / 2;
+            g2.drawString(msg, x, y);
+        }
+    }
+
+    // KeyListener methods: handle user input.
+    // We change direction with arrow keys or WASD and restart with R when dead.
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int kc = e.getKeyCode();
+        Direction d = null;
+        if (kc == KeyEvent.VK_LEFT || kc == KeyEvent.VK_A) d = Direction.LEFT;
+        else if (kc == KeyEvent.VK_RIGHT || kc == KeyEvent.VK_D) d = Direction.RIGHT;
+        else if (kc == KeyEvent.VK_UP || kc == KeyEvent.VK_W) d = Direction.UP;
+        else if (kc == KeyEvent.VK_DOWN || kc == KeyEvent.VK_S) d = Direction.DOWN;
+        // Queue the turn for the coming ticks. A full queue (the player is already
+        // 8 turns ahead of the snake) drops the press.
+        if (d != null) input.offer(d);
+
+        // Show or hide the frame time
+        if (kc == KeyEvent.VK_F) {
+            showFrameTime = !showFrameTime;
+            repaint(HUD_AREA);
+        }
+
+        // Restart if game over; the loop thread does it and resumes ticking
+        if (kc == KeyEvent.VK_R && !isRunning()) {
+            restartRequested = true;
+            loop.wake();
+        }
+    }
+
+    // Unused but required by KeyListener
+    @Override public void keyReleased(KeyEvent e) {}
+    @Override public void keyTyped(KeyEvent e) {}
+}
+
+/**
+ * GameLoop: fixed-timestep scheduler running a GamePanel's ticks on its own thread.
+ *
+ * Theory: a javax.swing.Timer fires on the EDT, so every tick waits behind
+ * whatever Swing is doing (painting, layout, input), and the game's pace jitters
+ * with the UI load. Here a dedicated thread keeps a schedule instead: tick n is
+ * due at start + sum of the intervals before it, so a late tick does not push the
+ * following ones back (no drift). The thread parks until just before the due
+ * time, then spins the last half millisecond for precise timing.
+ *
+ * If the loop falls more than a few ticks behind (e.g. the machine was suspended),
+ * it starts a new schedule from now rather than running the missed ticks back to
+ * back. While the game is over the thread parks until R restarts it.
+ */
+class GameLoop implements Runnable {
+    private static final long SPIN_NANOS = 500_000;
+    private static final int MAX_BEHIND_TICKS = 5;
+
+    private final GamePanel panel;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    GameLoop(GamePanel panel) {
+        this.panel = panel;
+        this.thread = new Thread(this, "snake-loop");
+        this.thread.setDaemon(true);
+    }
+
+    void start() { thread.start(); }
+
+    // Wake the loop after a restart request
+    void wake() { LockSupport.unpark(thread); }
+
+    void stop() {
+        stopped = true;
+        wake();
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime() + panel.tickNanos();
+        while (!stopped) {
+            if (panel.restartIfRequested()) next = System.nanoTime() + panel.tickNanos();
+            if (!panel.isRunning()) {
+                // Game over: nothing to do until a restart
+                LockSupport.park(this);
+                next = System.nanoTime() + panel.tickNanos();
+                continue;
+            }
+
+            long wait = next - System.nanoTime();
+            if (wait > SPIN_NANOS) {
+                LockSupport.parkNanos(this, wait - SPIN_NANOS);
+                continue; // re-check: may have woken early
+            }
+            while (System.nanoTime() - next < 0) Thread.onSpinWait();
+
+            panel.recordLateness(System.nanoTime() - next);
+            panel.update();
+            long interval = panel.tickNanos();
+            next += interval;
+            if (System.nanoTime() - next > MAX_BEHIND_TICKS * interval) next = System.nanoTime();
+        }
+    }
+}
+
+/**
+ * InputQueue: small bounded queue of Directions from one producer thread (the
+ * EDT, in keyPressed) to one consumer thread (the game loop, in update).
+ *
+ * Theory: with exactly one writer and one reader, a ring buffer needs no lock and
+ * no compare-and-set. The producer fills a slot and then publishes it by moving
+ * tail; the consumer reads a slot and then frees it by moving head. Each index is
+ * written by one thread only, and the ordered (release) writes of the indexes
+ * guarantee the other thread sees the slot's contents when it sees the index.
+ */
+class InputQueue {
+    private final Direction[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to read (consumer)
+    private final AtomicLong tail = new AtomicLong(); // next slot to fill (producer)
+
+    // capacity must be a power of two
+    InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        slots = new Direction[capacity];
+        mask = capacity - 1;
+    }
+
+    // Producer: add d, or return false if the queue is full
+    boolean offer(Direction d) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) return false;
+        slots[(int) t & mask] = d;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Consumer: take the oldest direction, or null if there is none
+    Direction poll() {
+        long h = head.get();
+        if (h == tail.get()) return null;
+        Direction d = slots[(int) h & mask];
+        head.lazySet(h + 1);
+        return d;
+    }
+
+    // Consumer: drop everything queued so far
+    void clear() {
+        head.lazySet(tail.get());
+    }
+}
+
+/**
+ * FrameTimer: frame-time counter for GamePanel.
+ *
+ * Collects durations (frame times, tick lateness) for one second at a time; the
+ * mean and maximum reported are those of the last complete second, so the
+ * numbers on screen stay readable instead of flickering every frame. One thread
+ * records; the results may be read from any thread.
+ */
+class FrameTimer {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private long windowStart = System.nanoTime();
+    private long count, sum, max;             // current second
+    private volatile long lastMean, lastMax, lastCount; // last complete second
+
+    void record(long nanos) {
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+        long now = System.nanoTime();
+        if (now - windowStart >= WINDOW_NANOS) {
+            lastMean = sum / count;
+            lastMax = max;
+            lastCount = count;
+            count = sum = max = 0;
+            windowStart = now;
+        }
+    }
+
+    long meanNanos() { return lastMean; }
+    long maxNanos() { return lastMax; }
+    long frames() { return lastCount; }   // frames painted in the last complete second
+}
@@ -0,0 +1,142 @@
+package snake;
+
+/**
+ * SnakeBody: the snake's cells, head first, without one object per segment.
+ *
+ * Theory: a snake only ever changes at its two ends. Each tick the head gains a
+ * cell and (unless it ate) the tail loses one. Inserting at the front of an
+ * ArrayList shifts every element, so a move costs O(length), and a new segment
+ * object per tick is garbage a few hundred ticks later. Here:
+ * - cells is a ring buffer of packed coordinates (y * width + x). The head and
+ *   tail are just indexes that move around the array, so adding a head and
+ *   removing the tail are O(1) and write a single int.
+ * - occupied is a bitset with one bit per grid cell, set while the snake covers
+ *   that cell. "Does the snake cover (x,y)?" becomes one bit test instead of a
+ *   scan of the whole body, which makes self collision O(1).
+ * - free lists exactly the cells the snake does not cover, in no particular
+ *   order, and freeIndex says where each free cell sits in it. Covering a cell
+ *   swaps it with the last free cell and shrinks the list; freeing one appends
+ *   it. Both are O(1), and a random free cell (for food) is one random index,
+ *   however full the board is.
+ * The ring's capacity is a power of two so an index wraps with a mask; it only
+ * grows (doubling, at most to the grid size) when the snake gets longer than
+ * ever before, so a running game allocates nothing per tick.
+ *
+ * Coordinates must be on the grid; the caller checks walls first.
+ */
+class SnakeBody {
+    private final int width;
+    private final int cellCount;
+    private final long[] occupied;  // bit (y * width + x) set while the snake covers it
+    private final int[] free;       // cells not covered, in [0, freeCount)
+    private final int[] freeIndex;  // position of each free cell in free
+    private int freeCount;
+    private int[] cells;            // ring buffer of packed cells
+    private int mask;               // cells.length - 1
+    private int head;               // ring index of the head
+    private int length;
+
+    SnakeBody(int width, int height) {
+        this.width = width;
+        this.cellCount = width * height;
+        this.occupied = new long[(cellCount + 63) >>> 6];
+        this.free = new int[cellCount];
+        this.freeIndex = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            free[cell] = cell;
+            freeIndex[cell] = cell;
+        }
+        this.freeCount = cellCount;
+        this.cells = new int[16];
+        this.mask = cells.length - 1;
+    }
+
+    // Remove every segment (O(length), not O(grid size))
+    void clear() {
+        for (int i = 0; i < length; i++) {
+            int cell = cells[(head + i) & mask];
+            if (isOccupied(cell)) release(cell);
+        }
+        head = 0;
+        length = 0;
+    }
+
+    int length() { return length; }
+    int headX() { return x(0); }
+    int headY() { return y(0); }
+
+    // Coordinates of segment i, counting from the head (0)
+    int x(int i) { return cells[(head + i) & mask] % width; }
+    int y(int i) { return cells[(head + i) & mask] / width; }
+
+    boolean isOccupied(int x, int y) {
+        return isOccupied(y * width + x);
+    }
+
+    private boolean isOccupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    // Number of cells the snake does not cover, and the i-th of them (0 <= i < freeCount)
+    int freeCount() { return freeCount; }
+    int freeCell(int i) { return free[i]; }
+
+    // Add a new head in front of the current one
+    void addHead(int x, int y) {
+        if (length == cells.length) grow();
+        head = (head - 1) & mask;
+        int cell = y * width + x;
+        cells[head] = cell;
+        // Already covered only when the head runs into the body (the game ends)
+        if (!isOccupied(cell)) cover(cell);
+        length++;
+    }
+
+    // Add a segment behind the current tail (used to lay out a new snake)
+    void addTail(int x, int y) {
+        if (length == cells.length) grow();
+        int cell = y * width + x;
+        cells[(head + length) & mask] = cell;
+        if (!isOccupied(cell)) cover(cell);
+        length++;
+    }
+
+    // Drop the last segment and free its cell
+    void removeTail() {
+        length--;
+        int cell = cells[(head + length) & mask];
+        release(cell);
+    }
+
+    // Mark cell covered: swap it with the last free cell and shrink the free list
+    private void cover(int cell) {
+        occupied[cell >>> 6] |= 1L << cell;
+        int i = freeIndex[cell];
+        int last = free[--freeCount];
+        free[i] = last;
+        freeIndex[last] = i;
+        free[freeCount] = cell;
+        freeIndex[cell] = freeCount;
+    }
+
+    // Mark cell free again: swap it to the end of the free list and grow it
+    private void release(int cell) {
+        occupied[cell >>> 6] &= ~(1L << cell);
+        int i = freeIndex[cell];
+        int first = free[freeCount];
+        free[i] = first;
+        freeIndex[first] = i;
+        free[freeCount] = cell;
+        freeIndex[cell] = freeCount++;
+    }
+
+    // Double the ring, unrolling it so the head is at index 0 again
+    private void grow() {
+        if (length >= cellCount) throw new IllegalStateException("Snake is longer than the grid");
+        int[] bigger = new int[cells.length * 2];
+        for (int i = 0; i < length; i++) bigger[i] = cells[(head + i) & mask];
+        cells = bigger;
+        mask = bigger.length - 1;
+        head = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package snake;
+
+/**
+ * SnakeController: whoever steers the snake in SnakeEngine.run().
+ *
+ * Before every tick the engine asks its controller for a direction; returning
+ * null (or the current direction) keeps going straight, and a turn straight back
+ * is ignored. A controller only reads the engine's state, so the same stateless
+ * controller can steer any number of games on any number of threads at once.
+ *
+ * Two bots are built in:
+ * - GREEDY heads for the food along the shortest path, never turning into a wall
+ *   or its own body if another way is open. Quick, but it traps itself as it
+ *   grows.
+ * - CYCLE follows one fixed route through every cell of the grid (a Hamiltonian
+ *   cycle), so it can never collide and always fills the board: a slow but
+ *   certain win. It needs an even number of rows.
+ */
+@FunctionalInterface
+interface SnakeController {
+    Direction decide(SnakeEngine game);
+
+    SnakeController GREEDY = game -> {
+        int hx = game.headX();
+        int hy = game.headY();
+        Food food = game.food();
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction d : Direction.values()) {
+            if (d == game.direction().opposite()) continue;
+            int x = hx + d.dx;
+            int y = hy + d.dy;
+            // Blocked cells only count if nothing else is open; the current
+            // direction wins ties so the snake does not zigzag
+            int distance = food == null ? 0 : Math.abs(x - food.x) + Math.abs(y - food.y);
+            if (game.isBlocked(x, y)) distance += 1 << 20;
+            if (distance < bestDistance || (distance == bestDistance && d == game.direction())) {
+                best = d;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    };
+
+    // Route: up column 0 to the top row, then back down snaking across columns
+    // 1..width-1, two rows at a time (right along even rows, left along odd ones).
+    // A new game heads right; started on an odd row it first steps to an even one.
+    SnakeController CYCLE = game -> {
+        if (game.height() % 2 != 0) throw new IllegalStateException("CYCLE needs an even number of rows");
+        Direction route = route(game.headX(), game.headY(), game.width(), game.height());
+        if (route != game.direction().opposite()) return route;
+        return game.headY() + 1 < game.height() ? Direction.DOWN : Direction.UP;
+    };
+
+    private static Direction route(int x, int y, int width, int height) {
+        if (x == 0) return y == 0 ? Direction.RIGHT : Direction.UP;
+        if (y == height - 1 && x == 1) return Direction.LEFT;
+        if (y % 2 == 0) return x == width - 1 ? Direction.DOWN : Direction.RIGHT;
+        return x == 1 ? Direction.DOWN : Direction.LEFT;
+    }
+}
@@ -0,0 +1,185 @@
+package snake;
+
+import java.util.SplittableRandom;
+
+/**
+ * SnakeEngine: the rules of Snake with no user interface.
+ *
+ * Theory: the game's state (body, food, direction, score) and the rule that
+ * advances it by one tick do not need Swing at all. Keeping them in a plain
+ * class means the same rules can be
+ * - drawn by GamePanel, which only forwards key presses and paints the state,
+ * - stepped as fast as the CPU allows, millions of ticks per second, by a
+ *   bot or a regression test, and
+ * - run as many independent games on many threads at once (SnakeSimulator),
+ *   because a game shares nothing with any other game.
+ *
+ * Who steers is pluggable: run() asks a SnakeController for a direction before
+ * every tick. Food placement uses the game's own seeded generator, so the same
+ * seed and the same directions always replay the same game.
+ *
+ * The model classes the engine is built from, SnakeBody, Food and Direction, each
+ * have their own file in this package.
+ */
+class SnakeEngine {
+    // Grid (logical) dimensions in number of cells
+    private final int width;
+    private final int height;
+
+    // Model objects: snake body and food.
+    // The body is created with the grid size so its occupancy bitset covers every cell.
+    private final SnakeBody snake;
+    private Food food;
+
+    // The current movement direction of the snake.
+    private Direction direction = Direction.RIGHT;
+
+    // Game state variables
+    private boolean running = false;
+    private boolean won = false; // the snake filled the whole board
+    private int score = 0;
+    private long ticks = 0;
+
+    private final SplittableRandom rand;
+
+    // Outcome of the last moveSnake(), read by the collision checks
+    private boolean hitWall;
+    private boolean bitSelf;
+
+    SnakeEngine(int width, int height, long seed) {
+        if (width < 2 || height < 1) throw new IllegalArgumentException("Grid must be at least 2x1");
+        this.width = width;
+        this.height = height;
+        this.snake = new SnakeBody(width, height);
+        this.rand = new SplittableRandom(seed);
+    }
+
+    // Reset with a snake of the given length, laid out to the left of the center
+    // cell and heading right.
+    void reset(int length) {
+        int startX = width / 2;
+        int startY = height / 2;
+        if (length < 1 || length > startX + 1) throw new IllegalArgumentException("Snake does not fit: " + length);
+        snake.clear();
+        // Head first, then body parts
+        for (int i = 0; i < length; i++) {
+            snake.addTail(startX - i, startY);
+        }
+
+        direction = Direction.RIGHT;
+        score = 0;
+        ticks = 0;
+        running = true;
+        won = false;
+
+        spawnFood();
+    }
+
+    // Change direction for the next tick. Turning back onto the body is refused
+    // (returns false); any other direction, including the current one, is accepted.
+    boolean turn(Direction d) {
+        if (d == direction.opposite()) return false;
+        direction = d;
+        return true;
+    }
+
+    // Advance the game by one tick; returns whether it is still running
+    boolean tick() {
+        if (!running) return false;
+        moveSnake();
+        checkFoodCollision();
+        checkSelfCollision();
+        checkWallCollision();
+        ticks++;
+        return running;
+    }
+
+    // Play until the game ends or maxTicks ticks have passed, asking controller for
+    // a direction before each tick; returns the number of ticks played
+    long run(SnakeController controller, long maxTicks) {
+        long start = ticks;
+        while (running && ticks - start < maxTicks) {
+            Direction d = controller.decide(this);
+            if (d != null) turn(d);
+            tick();
+        }
+        return ticks - start;
+    }
+
+    // Read-only view of the state, for renderers and controllers
+    int width() { return width; }
+    int height() { return height; }
+    boolean isRunning() { return running; }
+    boolean isWon() { return won; }
+    int score() { return score; }
+    long ticks() { return ticks; }
+    Direction direction() { return direction; }
+    Food food() { return food; }              // null once the board is full
+    int length() { return snake.length(); }
+    int headX() { return snake.x(0); }
+    int headY() { return snake.y(0); }
+    // Coordinates of segment i, counting from the head (0)
+    int x(int i) { return snake.x(i); }
+    int y(int i) { return snake.y(i); }
+
+    // True if (x,y) is off the grid or covered by the snake: moving there ends the game
+    // (unless it is the tail's cell and the tail moves on this tick)
+    boolean isBlocked(int x, int y) {
+        return x < 0 || x >= width || y < 0 || y >= height || snake.isOccupied(x, y);
+    }
+
+    // Move the snake one cell: remove the tail unless we are about to eat, then add
+    // the new head. Both ends of the ring buffer move in O(1) and nothing is allocated.
+    private void moveSnake() {
+        int newX = snake.x(0) + direction.dx;
+        int newY = snake.y(0) + direction.dy;
+        // Off the grid: leave the body as it is (the bitset has no cell for the new
+        // head), checkWallCollision() ends the game
+        hitWall = newX < 0 || newX >= width || newY < 0 || newY >= height;
+        bitSelf = false;
+        if (hitWall) return;
+
+        // Unless we eat food this tick, the tail moves on first, so the head may
+        // follow directly into the cell the tail just left
+        boolean eating = food != null && newX == food.x && newY == food.y;
+        if (!eating) snake.removeTail();
+        // Self collision is one bit lookup instead of a scan of the whole body
+        bitSelf = snake.isOccupied(newX, newY);
+        snake.addHead(newX, newY);
+    }
+
+    // If head overlaps food: increase score, spawn new food, and allow the snake to grow
+    private void checkFoodCollision() {
+        if (food != null && snake.x(0) == food.x && snake.y(0) == food.y) {
+            score += 10; // arbitrary scoring
+            // When we ate the food we already kept the tail in moveSnake() so the snake grew by 1
+            spawnFood();
+        }
+    }
+
+    // Check collision of head with any body segment (self collision)
+    private void checkSelfCollision() {
+        if (bitSelf) running = false;
+    }
+
+    // Check collision with walls (grid boundary). If hit -> game over
+    private void checkWallCollision() {
+        if (hitWall) running = false;
+    }
+
+    // Randomly place food on a free grid cell (not occupied by the snake).
+    // The body keeps a list of exactly the free cells, so this is one random pick
+    // however full the board is. No free cell left means the snake covers the
+    // whole board: the player has won.
+    private void spawnFood() {
+        int free = snake.freeCount();
+        if (free == 0) {
+            food = null;
+            won = true;
+            running = false;
+            return;
+        }
+        int cell = snake.freeCell(rand.nextInt(free));
+        food = new Food(cell % width, cell / width);
+    }
+}
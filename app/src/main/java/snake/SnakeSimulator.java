@@ -0,0 +1,144 @@
+package snake;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * SnakeSimulator: plays many independent headless games at once, for evaluating
+ * bots and for regression tests.
+ *
+ * Usage: java snake.SnakeSimulator [games] [width] [height] [greedy|cycle] [threads] [maxTicks]
+ *        (default 10000 30 20 greedy <cores> 1000000)
+ *
+ * Game i is seeded with i, so its result depends only on its index and the
+ * controller, never on which thread played it or when. The games are split
+ * between the threads of a ForkJoinPool, halving the range until each piece is
+ * small; each game writes only its own slot of the result arrays.
+ *
+ * Prints ticks per second, wins, scores and a checksum over every game's result.
+ * With more than one thread the games are then replayed on one thread, and the
+ * two checksums must match (exit status 1 if they do not).
+ */
+public class SnakeSimulator {
+    private static final int SPLIT_BELOW = 16; // games per task before splitting stops
+
+    // Per-game results, by game index
+    final int[] scores;
+    final int[] lengths;
+    final long[] ticks;
+    final boolean[] won;
+
+    private final int width;
+    private final int height;
+    private final SnakeController controller;
+    private final long maxTicks;
+
+    SnakeSimulator(int games, int width, int height, SnakeController controller, long maxTicks) {
+        this.scores = new int[games];
+        this.lengths = new int[games];
+        this.ticks = new long[games];
+        this.won = new boolean[games];
+        this.width = width;
+        this.height = height;
+        this.controller = controller;
+        this.maxTicks = maxTicks;
+    }
+
+    // Play every game on `threads` threads
+    void run(int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Games(0, scores.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Play game i: a fresh engine seeded with i, a snake of 3, until it ends
+    void play(int i) {
+        SnakeEngine engine = new SnakeEngine(width, height, i);
+        engine.reset(3);
+        engine.run(controller, maxTicks);
+        scores[i] = engine.score();
+        lengths[i] = engine.length();
+        ticks[i] = engine.ticks();
+        won[i] = engine.isWon();
+    }
+
+    // FNV-1a over every game's score, length, ticks and outcome, in game order
+    long checksum() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < scores.length; i++) {
+            long[] values = {scores[i], lengths[i], ticks[i], won[i] ? 1 : 0};
+            for (long v : values) {
+                hash ^= v;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    private final class Games extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Games(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_BELOW) {
+                for (int i = from; i < to; i++) play(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Games(from, mid), new Games(mid, to));
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String bot = args.length > 3 ? args[3] : "greedy";
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long maxTicks = args.length > 5 ? Long.parseLong(args[5]) : 1_000_000;
+        SnakeController controller;
+        switch (bot) {
+            case "greedy": controller = SnakeController.GREEDY; break;
+            case "cycle": controller = SnakeController.CYCLE; break;
+            default: throw new IllegalArgumentException("Unknown controller: " + bot);
+        }
+
+        SnakeSimulator sim = new SnakeSimulator(games, width, height, controller, maxTicks);
+        long started = System.nanoTime();
+        sim.run(threads);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long totalTicks = 0;
+        long totalScore = 0;
+        int wins = 0;
+        int longest = 0;
+        for (int i = 0; i < games; i++) {
+            totalTicks += sim.ticks[i];
+            totalScore += sim.scores[i];
+            if (sim.won[i]) wins++;
+            longest = Math.max(longest, sim.lengths[i]);
+        }
+        System.out.printf(Locale.ROOT, "%d %s games on %dx%d, %d threads: %d ticks in %.2f s = %.1f M ticks/s%n",
+                games, bot, width, height, threads, totalTicks, seconds, totalTicks / seconds / 1e6);
+        System.out.printf(Locale.ROOT, "  wins %d, mean score %.1f, longest snake %d, checksum %016x%n",
+                wins, (double) totalScore / games, longest, sim.checksum());
+
+        if (threads > 1) {
+            SnakeSimulator serial = new SnakeSimulator(games, width, height, controller, maxTicks);
+            serial.run(1);
+            boolean same = serial.checksum() == sim.checksum();
+            System.out.println(same ? "  same results on one thread: OK" : "  same results on one thread: FAILED");
+            if (!same) System.exit(1);
+        }
+    }
+}
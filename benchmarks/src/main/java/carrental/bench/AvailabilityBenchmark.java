@@ -0,0 +1,79 @@
+package carrental.bench;
+
+import carrental.BookingEngine;
+import carrental.FleetStore;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Availability checks over booking data.
+ *
+ * The fleet has one vehicle per 20 bookings, booked over a two-year window with
+ * rentals of 1-14 days. isFree checks one vehicle; freeVehicles answers "which cars
+ * are free" for a random week. The 10M case needs a large heap (-Xmx8g or more).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class AvailabilityBenchmark {
+    private static final int DAY0 = 20_000;
+    private static final int WINDOW = 730;
+
+    @Param({"1000", "100000", "10000000"})
+    public int bookings;
+
+    private BookingEngine engine;
+    private int vehicles;
+    private int[] queryVehicle;
+    private int[] queryStart;
+    private int next;
+
+    @Setup
+    public void setup() {
+        vehicles = Math.max(1, bookings / 20);
+        FleetStore fleet = Fleets.fleet(vehicles, 1);
+        engine = new BookingEngine(fleet);
+
+        SplittableRandom rnd = new SplittableRandom(2);
+        int made = 0;
+        while (made < bookings) {
+            int start = DAY0 + rnd.nextInt(WINDOW);
+            if (engine.book(1 + rnd.nextInt(vehicles), start, start + 1 + rnd.nextInt(14)) >= 0) made++;
+        }
+
+        queryVehicle = new int[1 << 12];
+        queryStart = new int[1 << 12];
+        for (int i = 0; i < queryVehicle.length; i++) {
+            queryVehicle[i] = 1 + rnd.nextInt(vehicles);
+            queryStart[i] = DAY0 + rnd.nextInt(WINDOW);
+        }
+    }
+
+    @Benchmark
+    public boolean isFree() {
+        int i = next++ & (queryVehicle.length - 1);
+        return engine.isFree(queryVehicle[i], queryStart[i], queryStart[i] + 3);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BitSet freeVehicles() {
+        int i = next++ & (queryStart.length - 1);
+        return engine.freeVehicles(queryStart[i], queryStart[i] + 7);
+    }
+}
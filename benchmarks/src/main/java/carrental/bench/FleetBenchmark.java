@@ -0,0 +1,69 @@
+package carrental.bench;
+
+import carrental.Cars;
+import carrental.FleetStore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fleet insert (the App.addCar path) and lookup by vehicle id.
+ *
+ * insert: adds INSERTS cars to a fresh store of `fleetSize` cars, one single-shot
+ * iteration each, so every measurement starts from the same size and includes any
+ * column growth those adds trigger. lookup: reads the fields App.viewCars and the
+ * booking paths need for a random vehicle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetBenchmark {
+    // Cars added per insert iteration, small next to every fleetSize
+    static final int INSERTS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int fleetSize;
+
+    private FleetStore store;
+    private Cars car;
+    private int[] ids;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        store = Fleets.fleet(fleetSize, 42);
+        car = new Cars("Corolla", "Toyota", 12_000, "45.50", "Sedan", "5");
+        ids = Fleets.randomIds(fleetSize, 1 << 16, 7);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 50)
+    @OperationsPerInvocation(INSERTS)
+    public int insert() {
+        int id = 0;
+        for (int i = 0; i < INSERTS; i++) id = store.add(car);
+        return id;
+    }
+
+    @Benchmark
+    public long lookup() {
+        int id = ids[next++ & (ids.length - 1)];
+        return store.getRateCents(id) + store.getMileage(id) + store.getMake(id).length() + store.getModel(id).length();
+    }
+}
@@ -0,0 +1,43 @@
+package carrental.bench;
+
+import carrental.Cars;
+import carrental.FleetStore;
+import java.util.SplittableRandom;
+
+/**
+ * Fleets: deterministic test data shared by the benchmarks.
+ */
+final class Fleets {
+    static final String[] MAKES = {"Toyota", "Honda", "Ford", "Nissan", "Suzuki", "BMW", "Kia", "Hyundai"};
+    static final String[] MODELS = {"Corolla", "Civic", "Focus", "Sunny", "Swift", "320i", "Rio", "Elantra"};
+    static final String[] TYPES = {"Sedan", "Hatchback", "SUV", "Van"};
+    static final String[] SEATS = {"2", "4", "5", "7"};
+
+    private Fleets() {}
+
+    static FleetStore fleet(int size, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        FleetStore store = new FleetStore();
+        Cars[] batch = new Cars[4096];
+        int pending = 0;
+        for (int i = 0; i < size; i++) {
+            long rate = 2_000 + rnd.nextInt(10_000);
+            batch[pending++] = new Cars(MODELS[rnd.nextInt(MODELS.length)], MAKES[rnd.nextInt(MAKES.length)],
+                    rnd.nextInt(200_000), rate, TYPES[rnd.nextInt(TYPES.length)], SEATS[rnd.nextInt(SEATS.length)]);
+            if (pending == batch.length) {
+                store.addBatch(batch, pending);
+                pending = 0;
+            }
+        }
+        if (pending > 0) store.addBatch(batch, pending);
+        return store;
+    }
+
+    // count (a power of two) random ids in 1..fleetSize
+    static int[] randomIds(int fleetSize, int count, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) ids[i] = 1 + rnd.nextInt(fleetSize);
+        return ids;
+    }
+}
@@ -0,0 +1,91 @@
+package carrental.bench;
+
+import carrental.FleetStore;
+import carrental.Money;
+import carrental.QuoteEngine;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Price calculation from ratePerDay.
+ *
+ * parseRate measures the old cost of reading a rate from its String form; quote,
+ * quoteBatch and quoteRange price from the pre-parsed cents. Batch results are per
+ * call, so divide by `batch` for the cost of one quote.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+    private static final int DAY0 = 20_000;
+
+    @Param({"1000", "1000000"})
+    public int fleetSize;
+
+    @Param({"1000"})
+    public int batch;
+
+    private QuoteEngine quotes;
+    private String[] rateText;
+    private int[] vehicleIds;
+    private int[] startDays;
+    private int[] endDays;
+    private long[] totals;
+    private int next;
+
+    @Setup
+    public void setup() {
+        FleetStore fleet = Fleets.fleet(fleetSize, 3);
+        quotes = new QuoteEngine(fleet);
+
+        SplittableRandom rnd = new SplittableRandom(4);
+        vehicleIds = new int[batch];
+        startDays = new int[batch];
+        endDays = new int[batch];
+        totals = new long[batch];
+        rateText = new String[batch];
+        for (int i = 0; i < batch; i++) {
+            vehicleIds[i] = 1 + rnd.nextInt(fleetSize);
+            startDays[i] = DAY0 + rnd.nextInt(365);
+            endDays[i] = startDays[i] + 1 + rnd.nextInt(21);
+            rateText[i] = Money.format(fleet.getRateCents(vehicleIds[i]));
+        }
+    }
+
+    @Benchmark
+    public long parseRate() {
+        return Money.parseCents(rateText[next++ % batch]);
+    }
+
+    @Benchmark
+    public long quote() {
+        int i = next++ % batch;
+        return quotes.quote(vehicleIds[i], startDays[i], endDays[i]);
+    }
+
+    @Benchmark
+    public long[] quoteBatch() {
+        quotes.quoteBatch(vehicleIds, startDays, endDays, totals, batch);
+        return totals;
+    }
+
+    @Benchmark
+    public long[] quoteRange() {
+        quotes.quoteRange(vehicleIds, batch, DAY0, DAY0 + 7, totals);
+        return totals;
+    }
+}
@@ -0,0 +1,49 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One GamePanel.update() tick with a snake of `length` segments.
+ *
+ * The snake starts straight, heading right, on a grid twice its length wide, so it can
+ * move about `length` ticks before hitting the wall; then the game is reset. The reset
+ * is counted in the measurement but amortizes to a constant per tick. Lives in package
+ * snake because update() is package-private. Runs headless (no window is created).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SnakeBenchmark {
+    @Param({"3", "1000", "100000"})
+    public int length;
+
+    private GamePanel panel;
+
+    @Setup
+    public void setup() {
+        Game game = new Game(2 * length + 64, 64, 4);
+        panel = game.getPanel();
+        panel.initGame(length);
+    }
+
+    @Benchmark
+    public int tick() {
+        if (!panel.isRunning()) panel.initGame(length);
+        panel.update();
+        return panel.getSnakeLength();
+    }
+}